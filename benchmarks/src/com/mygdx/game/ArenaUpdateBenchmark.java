@@ -0,0 +1,33 @@
+package com.mygdx.game;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Arena.update, refreshing the health, stock, and timer labels.
+ */
+public class ArenaUpdateBenchmark extends CombatBenchmark {
+
+    private Arena m_arena;
+    private float m_elapsedTime;
+
+    @Override
+    protected boolean isHeadless() {
+        return false;
+    }
+
+    @Setup(Level.Trial)
+    public void setupArena() {
+        m_arena = new Arena(m_world.context, fighterCount);
+    }
+
+    @TearDown(Level.Trial)
+    public void disposeArena() {
+        m_arena.dispose();
+    }
+
+    @Benchmark
+    public void update() {
+        m_elapsedTime += MyGdxGame.TIME_STEP;
+        m_arena.update(m_world.fighters, m_world.stocks, -1, m_elapsedTime);
+    }
+}
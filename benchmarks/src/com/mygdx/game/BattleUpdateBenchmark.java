@@ -0,0 +1,14 @@
+package com.mygdx.game;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Battle.update, the per tick logic without the World step.
+ */
+public class BattleUpdateBenchmark extends CombatBenchmark {
+
+    @Benchmark
+    public void update() {
+        m_world.battle.update();
+    }
+}
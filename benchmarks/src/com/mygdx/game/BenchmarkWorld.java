@@ -0,0 +1,108 @@
+package com.mygdx.game;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Json;
+
+/**
+ * A Battle setup shared by the Benchmarks.
+ * <p>
+ * Fighters alternate between the Fighters in the Fighters folder, and every live Attack
+ * is placed on top of the next Fighter so it overlaps a target.
+ */
+public class BenchmarkWorld {
+
+    private static final int FIGHTER_TYPES = 2;
+
+    private static boolean s_initialized;
+
+    public final SimulationContext context;
+    public final Battle battle;
+    public final Fighter[] fighters;
+    public final int[] stocks;
+    public final Array<Attack> attacks = new Array<>();
+
+
+    /**
+     * Sets up Gdx without a window, once per JVM.
+     */
+    public static synchronized void init() {
+        if (s_initialized) return;
+        new HeadlessApplication(new ApplicationAdapter() {}, new HeadlessApplicationConfiguration());
+        Gdx.gl = Gdx.gl20 = HeadlessGL.create();
+        s_initialized = true;
+    }
+
+
+    /**
+     * @param fighterCount Fighters in the Battle.
+     * @param attackCount Attacks alive in the World.
+     * @param headless if false the Arena loads its Textures and UI.
+     */
+    public BenchmarkWorld(int fighterCount, int attackCount, boolean headless) {
+        init();
+        context = new SimulationContext();
+
+        Json json = CharacterSelect.createFighterJson();
+        fighters = new Fighter[fighterCount];
+        PlayerController[] controllers = new PlayerController[fighterCount];
+        for (int i = 0; i < fighterCount; i++) {
+            fighters[i] = new Fighter(context, CharacterSelect.getFighterConfig(json, i % FIGHTER_TYPES), null);
+            controllers[i] = new PlayerController(fighters[i], PlayerController.ControllerType.None);
+            fighters[i].setController(controllers[i]);
+        }
+
+        // Battle never ends on its own
+        BattleConfig config = new BattleConfig();
+        config.stocks = -1;
+        config.timeLimit = -1;
+        battle = new Battle(context, fighters, controllers, config, headless);
+
+        stocks = new int[fighterCount];
+        for (int i = 0; i < fighterCount; i++) stocks[i] = -1;
+
+        spawnAttacks(attackCount);
+    }
+
+
+    /**
+     * Spawns melee Attacks round robin, each on top of the next Fighter.
+     * They aren't scheduled to expire, so they stay live for the whole Benchmark.
+     */
+    public void spawnAttacks(int attackCount) {
+        for (int i = 0; i < attackCount; i++) {
+            Fighter user = fighters[i % fighters.length];
+            Vector2 target = fighters[(i + 1) % fighters.length].getBody().getPosition();
+            Attack attack = user.getHitboxes().obtain(0);
+            attack.activate(target.x, target.y, true, 0);
+            attacks.add(attack);
+        }
+    }
+
+
+    /**
+     * Frees every active Attack that isn't one of the live Attacks spawned by this World.
+     */
+    public void removeNewAttacks() {
+        for (Fighter fighter : fighters) {
+            Array<Attack> pool = fighter.getHitboxes().getAttacks();
+            for (int i = 0; i < pool.size; i++) {
+                Attack attack = pool.get(i);
+                if (attack.isActive() && !attacks.contains(attack, true)) {
+                    battle.getExpiryScheduler().cancel(attack);
+                    attack.free();
+                }
+            }
+        }
+    }
+
+
+    public void dispose() {
+        battle.dispose();
+        context.dispose();
+    }
+}
@@ -0,0 +1,41 @@
+package com.mygdx.game;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shared parameters for the combat Benchmarks.
+ * Each Benchmark runs against a Battle of fighterCount Fighters with attackCount live Attacks.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public abstract class CombatBenchmark {
+
+    @Param({"2", "4", "8"})
+    public int fighterCount;
+
+    @Param({"0", "16", "64"})
+    public int attackCount;
+
+    protected BenchmarkWorld m_world;
+
+    /** If the Arena should load its Textures and UI. */
+    protected boolean isHeadless() {
+        return true;
+    }
+
+    @Setup(Level.Trial)
+    public void setupWorld() {
+        m_world = new BenchmarkWorld(fighterCount, attackCount, isHeadless());
+    }
+
+    @TearDown(Level.Trial)
+    public void disposeWorld() {
+        m_world.dispose();
+    }
+}
@@ -0,0 +1,32 @@
+package com.mygdx.game;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Fighter.attack, from button press to the Attack being active in the World.
+ * The new Attack is freed after each invocation, so the World keeps attackCount live Attacks.
+ */
+public class FighterAttackBenchmark extends CombatBenchmark {
+
+    @Benchmark
+    public float meleeAttack() {
+        return m_world.fighters[0].attack(Attack.attackType.Basic, Attack.direction.Side, true, true, 0);
+    }
+
+    @Benchmark
+    public float projectileAttack() {
+        return m_world.fighters[0].attack(Attack.attackType.Special, Attack.direction.Neutral, true, true, 0);
+    }
+
+    /** Attack and Animation lookup done by PlayerController.attack, without polling input. */
+    @Benchmark
+    public Fighter.Animations meleeAttackWithAnimation() {
+        m_world.fighters[0].attack(Attack.attackType.Basic, Attack.direction.Side, true, true, 0);
+        return Fighter.getMoveAnimation(Attack.attackType.Basic, Attack.direction.Side, true);
+    }
+
+    @TearDown(Level.Invocation)
+    public void removeAttack() {
+        m_world.removeNewAttacks();
+    }
+}
@@ -0,0 +1,52 @@
+package com.mygdx.game;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.utils.Array;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GDXHelper.generateAnimation, for every animation sheet of fighterCount Fighters.
+ * Live Attacks don't take part in loading, so this Benchmark has no attackCount.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GenerateAnimationBenchmark {
+
+    private static final String[] FIGHTER_NAMES = {"FistFighter", "SwordFighter"};
+
+    @Param({"2", "4", "8"})
+    public int fighterCount;
+
+    private final Array<Texture> m_sheets = new Array<>();
+
+    @Setup(Level.Trial)
+    public void loadSheets() {
+        BenchmarkWorld.init();
+        for (int i = 0; i < fighterCount; i++) {
+            String path = "Animations/" + FIGHTER_NAMES[i % FIGHTER_NAMES.length] + "/";
+            for (Fighter.Animations num : Fighter.Animations.values()) {
+                m_sheets.add(new Texture(Gdx.files.internal(path + num.path + ".png")));
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void disposeSheets() {
+        for (Texture sheet : m_sheets) sheet.dispose();
+    }
+
+    @Benchmark
+    public void generateAnimations(Blackhole blackhole) {
+        for (int i = 0; i < m_sheets.size; i++) {
+            blackhole.consume(GDXHelper.generateAnimation(m_sheets.get(i), 1/4f));
+        }
+    }
+}
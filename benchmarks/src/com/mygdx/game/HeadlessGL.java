@@ -0,0 +1,37 @@
+package com.mygdx.game;
+
+import com.badlogic.gdx.graphics.GL20;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.IntBuffer;
+
+/**
+ * GL20 that does nothing, so Textures, Skins, and Stages can be created without a GL context.
+ * <p>
+ * Every call returns a default value, except compile and link status queries which report success.
+ */
+public class HeadlessGL {
+
+    public static GL20 create() {
+        return (GL20) Proxy.newProxyInstance(GL20.class.getClassLoader(), new Class<?>[] {GL20.class},
+                (proxy, method, args) -> invoke(method, args));
+    }
+
+    private static Object invoke(Method method, Object[] args) {
+        String name = method.getName();
+        if ((name.equals("glGetShaderiv") || name.equals("glGetProgramiv")) && args[2] instanceof IntBuffer) {
+            int pname = (Integer) args[1];
+            IntBuffer params = (IntBuffer) args[2];
+            params.put(params.position(), (pname == GL20.GL_COMPILE_STATUS || pname == GL20.GL_LINK_STATUS) ? 1 : 0);
+            return null;
+        }
+
+        Class<?> type = method.getReturnType();
+        if (type == int.class) return 0;
+        if (type == boolean.class) return false;
+        if (type == float.class) return 0f;
+        if (type == String.class) return "";
+        return null;
+    }
+}
@@ -0,0 +1,27 @@
+package com.mygdx.game;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * HitboxWorld.step, testing every live Attack against the Fighters' hurtboxes and resolving the hits.
+ * <p>
+ * Time is per step, with every Attack placed on a target so each one hits.
+ */
+public class HitDetectionBenchmark extends CombatBenchmark {
+
+    private HitboxWorld m_hitboxWorld;
+    private DestructionQueue m_destructionQueue;
+
+    @Setup(Level.Trial)
+    public void findHitboxWorld() {
+        m_hitboxWorld = m_world.context.getHitboxWorld();
+        m_destructionQueue = m_world.context.getDestructionQueue();
+    }
+
+    @Benchmark
+    public void step() {
+        m_hitboxWorld.step();
+        // A hit queues the Attack for removal, forget it so every pass does the same work.
+        m_destructionQueue.clear();
+    }
+}
@@ -0,0 +1,49 @@
+package com.mygdx.game;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+
+/**
+ * BattleSnapshot encoding and decoding, to see if snapshots can be taken every tick.
+ */
+public class SnapshotBenchmark extends CombatBenchmark {
+
+    private final ByteBuffer m_buffer = ByteBuffer.allocateDirect(64 * 1024);
+    private final BattleSnapshot.Reader m_reader = new BattleSnapshot.Reader();
+    private BattleSnapshot m_snapshot;
+    private BattleState m_state;
+
+    @Setup(Level.Trial)
+    public void setupSnapshot() {
+        m_snapshot = new BattleSnapshot(fighterCount);
+        m_state = new BattleState(fighterCount);
+        encode();
+    }
+
+    /** Saves the Battle and encodes it. */
+    @Benchmark
+    public int encode() {
+        m_buffer.clear();
+        m_snapshot.write(m_world.battle, m_buffer);
+        return m_buffer.position();
+    }
+
+    /** Decodes the whole snapshot into a BattleState, ready to restore. */
+    @Benchmark
+    public long decode() {
+        m_buffer.position(0);
+        BattleSnapshot.read(m_reader.wrap(m_buffer), m_state);
+        return m_state.getTick();
+    }
+
+    /** Reads a few values in place, as a spectator feed would. */
+    @Benchmark
+    public float readInPlace() {
+        m_buffer.position(0);
+        BattleSnapshot.Reader reader = m_reader.wrap(m_buffer);
+        float health = 0;
+        for (int i = 0; i < reader.getFighterCount(); i++) health += reader.getHealth(i) + reader.getX(i);
+        return health;
+    }
+}
@@ -0,0 +1,21 @@
+package com.mygdx.game;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * One World.step, as run by the fixed time step loop in MyGdxGame.physicsStep.
+ * The World is rebuilt every iteration, so Fighters don't fall out of the Arena mid measurement.
+ */
+public class WorldStepBenchmark extends CombatBenchmark {
+
+    @Setup(Level.Iteration)
+    public void resetWorld() {
+        m_world.dispose();
+        setupWorld();
+    }
+
+    @Benchmark
+    public void step() {
+        m_world.context.getWorld().step(MyGdxGame.TIME_STEP, MyGdxGame.VELOCITY_ITERATIONS, MyGdxGame.POSITION_ITERATIONS);
+    }
+}
@@ -0,0 +1,74 @@
+package com.mygdx.game;
+
+import com.badlogic.gdx.math.Vector2;
+
+/**
+ * AI Input Class
+ * A simple computer Player, walks to the closest Fighter and attacks once in range.
+ * Decisions only depend on the Battle's state, so AI Battles stay deterministic.
+ */
+public class AIInput implements InputSource {
+
+    /** Horizontal distance to attack from, in meters. */
+    private static final float ATTACK_RANGE = GDXHelper.PTM(60);
+
+    /** Height difference to jump towards the target, in meters. */
+    private static final float JUMP_HEIGHT = GDXHelper.PTM(80);
+
+    /** Ticks between decisions to attack or jump, so inputs are presses rather than held. */
+    private static final int DECISION_TICKS = 12;
+
+    private final Fighter m_fighter;
+    private final Fighter[] m_fighters;
+
+
+    /**
+     * @param fighter Fighter controlled by the AI.
+     * @param fighters Every Fighter in the Battle, the AI targets the others.
+     */
+    public AIInput(Fighter fighter, Fighter[] fighters) {
+        m_fighter = fighter;
+        m_fighters = fighters;
+    }
+
+
+    @Override
+    public int poll(long tick) {
+        Fighter target = getClosestTarget();
+        if (target == null) return InputFrame.NEUTRAL;
+
+        Vector2 pos = m_fighter.getBody().getPosition();
+        Vector2 targetPos = target.getBody().getPosition();
+        float dx = targetPos.x - pos.x;
+        float dy = targetPos.y - pos.y;
+        boolean decide = tick % DECISION_TICKS == 0;
+
+        int buttons = 0;
+        float axisX = Math.signum(dx);
+        if (Math.abs(dx) <= ATTACK_RANGE) {
+            if (decide) buttons |= InputFrame.BASIC;
+            // Stand still once close, but only when already facing the target.
+            // Facing only changes by walking, so a Fighter facing away keeps walking for a tick to turn.
+            boolean isFacingTarget = m_fighter.getController().isFacingRight() == (dx > 0);
+            if (Math.abs(dx) < ATTACK_RANGE / 2 && isFacingTarget) axisX = 0;
+        }
+        if (decide && dy > JUMP_HEIGHT) buttons |= InputFrame.JUMP;
+        return InputFrame.of(buttons, axisX, 0);
+    }
+
+
+    private Fighter getClosestTarget() {
+        Vector2 pos = m_fighter.getBody().getPosition();
+        Fighter closest = null;
+        float closestDistance = Float.MAX_VALUE;
+        for (Fighter fighter : m_fighters) {
+            if (fighter == m_fighter || fighter.isDead) continue;
+            float distance = fighter.getBody().getPosition().dst2(pos);
+            if (distance < closestDistance) {
+                closest = fighter;
+                closestDistance = distance;
+            }
+        }
+        return closest;
+    }
+}
@@ -0,0 +1,112 @@
+package com.mygdx.game;
+
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.graphics.g2d.Animation;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+
+import java.util.HashMap;
+
+/**
+ * Animation Cache Class
+ * Loads a Fighter's atlas once, and shares its Animations between every Fighter of that character.
+ * <p>
+ * Animations are reference counted by Fighter name, the atlas is unloaded once the last Fighter using it
+ * is disposed. To keep a character loaded between Battles, acquire the next Battle's Fighters before
+ * disposing the last one.
+ * <p>
+ * Atlases already streamed in by the AssetManager, such as during Character Select, are used without reloading.
+ */
+public class AnimationCache {
+
+    private final AssetManager m_assetManager;
+    private final HashMap<String, HashMap<Fighter.Animations, Animation<TextureRegion>>> m_animations;
+    private final HashMap<String, Integer> m_references;
+
+
+    /**
+     * @param assetManager loads the atlases, owned by the caller.
+     */
+    public AnimationCache(AssetManager assetManager) {
+        m_assetManager = assetManager;
+        m_animations = new HashMap<>();
+        m_references = new HashMap<>();
+    }
+
+
+    /**
+     * @param fighterName name of the Fighter, same as its Animations folder.
+     * @return path of the Fighter's atlas, packed by the packTextures task.
+     */
+    public static String getAtlasPath(String fighterName) {
+        return "Atlases/" + fighterName + ".atlas";
+    }
+
+
+    /**
+     * Gets the shared Animations of a Fighter, loading them if no other Fighter holds them.
+     * Every acquire needs a matching release.
+     * @param fighterName name of the Fighter.
+     * @return Animations of the Fighter, shared, don't modify.
+     */
+    public HashMap<Fighter.Animations, Animation<TextureRegion>> acquire(String fighterName) {
+        HashMap<Fighter.Animations, Animation<TextureRegion>> animations = m_animations.get(fighterName);
+        if (animations == null) {
+            String path = getAtlasPath(fighterName);
+            m_assetManager.load(path, TextureAtlas.class);
+            m_assetManager.finishLoadingAsset(path);
+            animations = generateAnimations(m_assetManager.get(path, TextureAtlas.class));
+            m_animations.put(fighterName, animations);
+        }
+        m_references.put(fighterName, m_references.getOrDefault(fighterName, 0) + 1);
+        return animations;
+    }
+
+
+    /**
+     * Releases a Fighter's Animations, unloading its atlas if nothing else holds them.
+     * @param fighterName name of the Fighter.
+     */
+    public void release(String fighterName) {
+        Integer references = m_references.get(fighterName);
+        if (references == null) return;
+
+        if (references > 1) {
+            m_references.put(fighterName, references - 1);
+            return;
+        }
+        m_references.remove(fighterName);
+        m_animations.remove(fighterName);
+        m_assetManager.unload(getAtlasPath(fighterName));
+    }
+
+
+    /**
+     * @return Number of Fighters holding the character's Animations.
+     */
+    public int getReferences(String fighterName) {
+        return m_references.getOrDefault(fighterName, 0);
+    }
+
+
+    /**
+     * Builds every Animation found in a Fighter's atlas.
+     */
+    private static HashMap<Fighter.Animations, Animation<TextureRegion>> generateAnimations(TextureAtlas atlas) {
+        HashMap<Fighter.Animations, Animation<TextureRegion>> animations = new HashMap<>();
+        for (Fighter.Animations num : Fighter.Animations.values()) {
+            TextureRegion sheet = atlas.findRegion(num.path);
+            if (sheet != null) animations.put(num, GDXHelper.generateAnimation(sheet, 1/4f));
+        }
+        return animations;
+    }
+
+
+    public void dispose() {
+        for (String fighterName : m_animations.keySet()) {
+            m_assetManager.unload(getAtlasPath(fighterName));
+        }
+        m_animations.clear();
+        m_references.clear();
+    }
+}
@@ -1,17 +1,22 @@
 package com.mygdx.game;
 
 import com.badlogic.gdx.Gdx;
-import com.badlogic.gdx.files.FileHandle;
-import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.Camera;
+import com.badlogic.gdx.graphics.g2d.Batch;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
-import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.Body;
 import com.badlogic.gdx.physics.box2d.BodyDef.BodyType;
 import com.badlogic.gdx.physics.box2d.Fixture;
+import com.badlogic.gdx.physics.box2d.FixtureDef;
 import com.badlogic.gdx.scenes.scene2d.Stage;
 import com.badlogic.gdx.scenes.scene2d.ui.Label;
 import com.badlogic.gdx.scenes.scene2d.ui.Skin;
+import com.badlogic.gdx.utils.StringBuilder;
+
+import java.util.Arrays;
 
 
 /**
@@ -31,61 +36,120 @@ public class Arena {
 
     private static final float GROUND_WIDTH = GDXHelper.PTM(500);
     private static final float GROUND_HEIGHT = GDXHelper.PTM(200);
-    private static final Skin FONT = new Skin(Gdx.files.internal("FontSkins\\default\\skin\\uiskin.json"));
 
     private final Vector2[] m_startingPositions;
 
     // World Objects
-    private final Body m_groundBody = MyGdxGame.WORLD.createBody(GDXHelper.generateBodyDef(BodyType.StaticBody, GROUND_POSITION));
-    private final Fixture m_groundFixture = m_groundBody.createFixture(
-        GDXHelper.generateFixtureDef(1, 0.3f, 0, GROUND_WIDTH, GROUND_HEIGHT,
-            MyGdxGame.entityCategory.Ground.id, MyGdxGame.entityCategory.Fighter.id));
-    private final Body m_bedrockBody = MyGdxGame.WORLD.createBody(GDXHelper.generateBodyDef(BodyType.StaticBody, new Vector2(0, -5000)));
-    private final Fixture m_bedrockFixture = m_bedrockBody.createFixture(
-            GDXHelper.generateFixtureDef(1, 10, 0, 10000, 0.01f,
-                    MyGdxGame.entityCategory.Ground.id, MyGdxGame.entityCategory.Fighter.id));
-
-    private final Texture m_background;
-    private final Texture m_ground;
-
-    // UI
-    private final Stage m_stage = new Stage();
+    private final Body m_groundBody;
+    private final Fixture m_groundFixture;
+    private final Body m_bedrockBody;
+    private final Fixture m_bedrockFixture;
+
+    // Graphics, null when headless.
+    private final TextureAtlas m_atlas;
+    private final TextureRegion m_background;
+    private final TextureRegion m_ground;
+    /** Guard bubble, in the same Texture as the Background so it doesn't cost a bind. */
+    private final TextureRegion m_shield;
+
+    // UI, null when headless.
+    private final Skin m_font;
+    private final Stage m_stage;
     private final Label[] m_healthLabels;
     private final Label[] m_stockLabels;
     private final Label m_timerLabel;
-    private float m_startTime;
+
+    // Last displayed values, Labels are only re-laid out when these change.
+    // Health and Ult are in tenths of a percent, the Timer in hundredths of a second.
+    private final int[] m_shownHealth;
+    private final int[] m_shownUlt;
+    private final int[] m_shownStocks;
+    private int m_shownTime;
+
+    /** Reused to build Label text, Labels copy it. */
+    private final StringBuilder m_text = new StringBuilder();
+
+
+    /**
+     * Constructor for the Arena Class.
+     * @param context Context to create the Ground in.
+     */
+    public Arena(SimulationContext context, int numOfFighters) {
+        this(context, numOfFighters, false);
+    }
 
 
     /**
      * Constructor for the Arena Class.
+     * @param context Context to create the Ground in.
+     * @param headless if true only the physics of the Arena are created, no Textures or UI.
      */
-    public Arena(int numOfFighters) {
+    public Arena(SimulationContext context, int numOfFighters, boolean headless) {
+        m_groundBody = context.createBody(GDXHelper.generateBodyDef(BodyType.StaticBody, GROUND_POSITION));
+        m_groundFixture = createFixture(m_groundBody,
+            GDXHelper.generateFixtureDef(1, 0.3f, 0, GROUND_WIDTH, GROUND_HEIGHT,
+                MyGdxGame.entityCategory.Ground.id, MyGdxGame.entityCategory.Fighter.id));
+        m_bedrockBody = context.createBody(GDXHelper.generateBodyDef(BodyType.StaticBody, new Vector2(0, -5000)));
+        m_bedrockFixture = createFixture(m_bedrockBody,
+                GDXHelper.generateFixtureDef(1, 10, 0, 10000, 0.01f,
+                        MyGdxGame.entityCategory.Ground.id, MyGdxGame.entityCategory.Fighter.id));
         m_groundFixture.setUserData(MyGdxGame.entityCategory.Ground);
-        m_startingPositions = new Vector2[] {
-            new Vector2(GDXHelper.PTM(10), GDXHelper.PTM(10)), new Vector2(GDXHelper.PTM(7), GDXHelper.PTM(10))
-        };
+        // Spaced 3 pixels apart, leftwards from the first player.
+        m_startingPositions = new Vector2[numOfFighters];
+        for (int i = 0; i < numOfFighters; i++) {
+            m_startingPositions[i] = new Vector2(GDXHelper.PTM(10 - 3 * i), GDXHelper.PTM(10));
+        }
 
+        if (headless) {
+            m_font = null;
+            m_stage = null;
+            m_healthLabels = null;
+            m_stockLabels = null;
+            m_timerLabel = null;
+            m_shownHealth = null;
+            m_shownUlt = null;
+            m_shownStocks = null;
+            m_atlas = null;
+            m_background = null;
+            m_ground = null;
+            m_shield = null;
+            return;
+        }
+
+        m_font = new Skin(Gdx.files.internal("FontSkins/default/skin/uiskin.json"));
+        m_stage = new Stage();
         m_healthLabels = new Label[numOfFighters];
         m_stockLabels = new Label[numOfFighters];
         float labelPosX = 100;
         float labelPosY = 60;
         for (int i = 0; i < numOfFighters; i++) {
-            m_healthLabels[i] = new Label("0%", FONT);
+            m_healthLabels[i] = new Label("0%", m_font);
             m_stage.addActor(m_healthLabels[i]);
             m_healthLabels[i].setPosition(labelPosX, labelPosY);
-            m_stockLabels[i] = new Label("0", FONT);
+            m_stockLabels[i] = new Label("0", m_font);
             m_stage.addActor(m_stockLabels[i]);
             m_stockLabels[i].setPosition(labelPosX, labelPosY - 25);
             labelPosX += 200;
         }
 
-        m_startTime = System.currentTimeMillis();
-        m_timerLabel = new Label(Float.toString(m_startTime), FONT);
+        m_timerLabel = new Label("0", m_font);
         m_stage.addActor(m_timerLabel);
         m_timerLabel.setPosition(1200, 600);
 
-        m_background = new Texture(Gdx.files.internal("Arenas/background0.png"));
-        m_ground = new Texture(Gdx.files.internal("Arenas/ground0.png"));
+        // Nothing shown yet, so the first update sets every Label.
+        m_shownHealth = new int[numOfFighters];
+        m_shownUlt = new int[numOfFighters];
+        m_shownStocks = new int[numOfFighters];
+        Arrays.fill(m_shownHealth, Integer.MIN_VALUE);
+        Arrays.fill(m_shownUlt, Integer.MIN_VALUE);
+        Arrays.fill(m_shownStocks, Integer.MIN_VALUE);
+        m_shownTime = Integer.MIN_VALUE;
+
+        // Packed by the packTextures task, so the Background, Ground and Shield share a Texture.
+        m_atlas = new TextureAtlas(Gdx.files.internal("Atlases/Arena0.atlas"));
+        m_background = m_atlas.findRegion("background0");
+        m_ground = m_atlas.findRegion("ground0");
+        m_shield = m_atlas.findRegion("shield");
     }
 
     public Body getGroundBody() {
@@ -100,6 +164,15 @@ public class Arena {
         return m_startingPositions;
     }
 
+    /**
+     * Creates the Fixture then frees the temporary Shape, Box2D keeps its own copy.
+     */
+    private static Fixture createFixture(Body body, FixtureDef fixtureDef) {
+        Fixture fixture = body.createFixture(fixtureDef);
+        fixtureDef.shape.dispose();
+        return fixture;
+    }
+
     /**
      * Render elements of the Arena. Including UI, Background, and Ground.
      */
@@ -110,39 +183,93 @@ public class Arena {
         // GDXHelper.drawRect(shapeRenderer, GROUND_POSITION.x, GROUND_POSITION.y, GROUND_WIDTH, GROUND_HEIGHT);
     }
 
-    public void drawUI() {
-        m_stage.draw();
+    /**
+     * Draws a guard bubble around a point.
+     * Requires the Batch to have already been begun, with the World's projection.
+     */
+    public void drawShield(Batch batch, float x, float y, float radius) {
+        batch.draw(m_shield, x - radius, y - radius, radius * 2, radius * 2);
+    }
+
+    /**
+     * Draws the UI Labels into an already begun Batch, instead of the Stage's own.
+     * Switches the Batch to the Stage's projection, which flushes what was drawn before once.
+     */
+    public void drawUI(Batch batch) {
+        Camera camera = m_stage.getCamera();
+        camera.update();
+        batch.setProjectionMatrix(camera.combined);
+        m_stage.getRoot().draw(batch, 1);
     }
 
     public void dispose() {
+        if (m_stage == null) return;
         m_stage.dispose();
-        m_groundFixture.getShape().dispose();
-        m_bedrockFixture.getShape().dispose();
+        m_font.dispose();
+        m_atlas.dispose();
     }
     
-    public void update(Fighter[] fighters, int[] stocks, float timeLimit) {
+    /**
+     * Updates the UI labels, only the ones whose displayed digits changed.
+     * @param elapsedTime Battle time in seconds.
+     */
+    public void update(Fighter[] fighters, int[] stocks, float timeLimit, float elapsedTime) {
+        if (m_stage == null) return;
+
         for (int i = 0; i < fighters.length; i++) {
-            m_healthLabels[i].setText(fighters[i].getName() + ": " + String.format("%.1f",fighters[i].getHealth()) + "%" + "\nUlt: " + String.format("%.1f", fighters[i].getUltMeter()) + "%");
-            m_stockLabels[i].setText((stocks[i] == -1) ? "inf" : Integer.toString(stocks[i]));
+            int health = Math.round(fighters[i].getHealth() * 10);
+            int ult = Math.round(fighters[i].getUltMeter() * 10);
+            if (health != m_shownHealth[i] || ult != m_shownUlt[i]) {
+                m_shownHealth[i] = health;
+                m_shownUlt[i] = ult;
+                m_text.setLength(0);
+                m_text.append(fighters[i].getName()).append(": ");
+                appendFixed(m_text, health, 1);
+                m_text.append("%\nUlt: ");
+                appendFixed(m_text, ult, 1);
+                m_text.append('%');
+                m_healthLabels[i].setText(m_text);
+            }
+
+            if (stocks[i] != m_shownStocks[i]) {
+                m_shownStocks[i] = stocks[i];
+                m_text.setLength(0);
+                if (stocks[i] == -1) m_text.append("inf");
+                else m_text.append(stocks[i]);
+                m_stockLabels[i].setText(m_text);
+            }
         }
 
-        // update timer
-        if (timeLimit == -1) { // Count up
-            m_timerLabel.setText(String.format("%.2f", (System.nanoTime() - m_startTime) / 1000000000.0));
-        } else { // Count Down from TimeLimit
-            m_timerLabel.setText(String.format("%.2f", (timeLimit - (System.nanoTime() - m_startTime) / 1000000000.0)));
+        // update timer, Count up, or Count Down from TimeLimit
+        int time = Math.round(((timeLimit == -1) ? elapsedTime : timeLimit - elapsedTime) * 100);
+        if (time != m_shownTime) {
+            m_shownTime = time;
+            m_text.setLength(0);
+            appendFixed(m_text, time, 2);
+            m_timerLabel.setText(m_text);
         }
 
         // m_stage.act();
     }
 
-
     /**
-     * Set the StartTime when the battle begins.
-     * @param time in NanoSeconds
+     * Appends a fixed point number, without formatting allocations.
+     * @param scaled value multiplied by 10^decimals, and rounded.
+     * @param decimals digits after the decimal point.
      */
-    public void setStartTime(float time) {
-        m_startTime = time;
+    private static void appendFixed(StringBuilder text, int scaled, int decimals) {
+        if (scaled < 0) {
+            text.append('-');
+            scaled = -scaled;
+        }
+        int scale = 1;
+        for (int i = 0; i < decimals; i++) scale *= 10;
+
+        text.append(scaled / scale).append('.');
+        int fraction = scaled % scale;
+        for (int digit = scale / 10; digit > 0; digit /= 10) {
+            text.append((char) ('0' + fraction / digit % 10));
+        }
     }
-    
+
 }
@@ -1,19 +1,39 @@
 package com.mygdx.game;
 
 import com.badlogic.gdx.math.Vector2;
-import com.badlogic.gdx.physics.box2d.*;
 
+/**
+ * Attack Class
+ * A hitbox for one of a Fighter's AttackConfigs.
+ * <p>
+ * The hitbox is an axis aligned box, moved and tested against the Fighters by the context's HitboxWorld,
+ * not a Box2D body. Activating one only sets its position, reused through the HitboxPool.
+ */
 public class Attack {
 
+    /**
+     * Simulation state of an Attack, saved and restored for rollback.
+     */
+    public static class State {
+        boolean isActive;
+        boolean isFacingRight;
+        long expireTick;
+        float x;
+        float y;
+        float velocityX;
+        float velocityY;
+    }
+
     public static class AttackInfo {
         public Fighter user;
         public Attack attack;
-        public long lifeTime;
+        /** Tick the Attack expires on. */
+        public long expireTick;
 
-        public AttackInfo(Fighter fighter, Attack _attack, long time) {
+        public AttackInfo(Fighter fighter, Attack _attack) {
             user = fighter;
             attack = _attack;
-            lifeTime = System.currentTimeMillis() + time;
+            expireTick = 0;
         }
     }
 
@@ -32,53 +52,168 @@ public class Attack {
         Ultimate
     }
 
+    /** How long non Projectile Attacks live for, in milliseconds. */
+    public static final long MELEE_LIFETIME = 50;
+
+    /** Mass Box2D gave the massless hitbox bodies Attacks used to have, projectile impulses are tuned to it. */
+    private static final float MASS = 1;
+
     public final float m_damage;
-    public final Fixture m_fixture;
-    public final Body m_body;
     public final float m_force;
     public final direction dir;
-    public final boolean isFacingRight;
     public final float ultPercent;
+    public boolean isFacingRight;
 
+    private final Fighter.AttackConfig m_config;
+    private final AttackInfo m_info;
+    private final RenderTransform m_renderTransform;
 
-    public Attack(Fighter user, float damage, float ultPercent, float force, Vector2 pos, Vector2 size, direction dir, boolean isFacingRight) {
-        m_damage = damage;
-        m_body = MyGdxGame.WORLD.createBody(GDXHelper.generateBodyDef(BodyDef.BodyType.DynamicBody, pos));
-        m_fixture = m_body.createFixture(GDXHelper.generateFixtureDef(0, 0, 0, size.x, size.y,
-                MyGdxGame.entityCategory.Attack.id, MyGdxGame.entityCategory.Fighter.id));
-        m_fixture.setSensor(true);
-        m_fixture.setUserData(new AttackInfo(user, this, 50));
-        m_force = force;
-        this.dir = dir;
-        this.isFacingRight = isFacingRight;
-        this.ultPercent = ultPercent;
-        m_body.setGravityScale(0);
+    /** Ticks the Attack lives for. */
+    private final long m_lifeTimeTicks;
+    private boolean m_isActive;
+    private boolean m_isDisposed;
+
+    /** Center of the hitbox, half its size on each side. */
+    private final Vector2 m_position = new Vector2();
+    private final Vector2 m_velocity = new Vector2();
+
+
+    /**
+     * Creates the inactive hitbox for an AttackConfig.
+     * @param user Fighter that owns the Attack.
+     * @param config Attack data, size of the hitbox and how it moves.
+     */
+    public Attack(Fighter user, Fighter.AttackConfig config) {
+        m_config = config;
+        m_damage = config.damage;
+        m_force = config.force;
+        dir = config.direction;
+        ultPercent = config.ultPercent;
+        m_info = new AttackInfo(user, this);
+        m_lifeTimeTicks = MyGdxGame.millisToTicks(config.isProjectile ? config.lifeTime : MELEE_LIFETIME);
+        m_renderTransform = new RenderTransform(m_position);
     }
 
 
-    public Attack(Fighter user, float damage, float ultPercent, float force, long lifeTime, boolean bringFighter, Vector2 startingPos, Vector2 impulse, Vector2 size, direction dir, boolean isFacingRight) {
-        m_damage = damage;
-        m_body = MyGdxGame.WORLD.createBody(GDXHelper.generateBodyDef(BodyDef.BodyType.DynamicBody, startingPos));
-        m_fixture = m_body.createFixture(GDXHelper.generateFixtureDef(0, 0, 0, size.x, size.y,
-            MyGdxGame.entityCategory.Attack.id, MyGdxGame.entityCategory.Fighter.id));
-        m_fixture.setSensor(true);
-        m_fixture.setUserData(new AttackInfo(user, this, lifeTime));
-        m_force = force;
-        this.dir = dir;
+    /**
+     * Places the hitbox in the World.
+     * Projectiles are launched with their impulse, and bring the Fighter along if configured to.
+     *
+     * @param x hitbox position
+     * @param y hitbox position
+     * @param isFacingRight direction the Fighter is facing, mirrors the impulse.
+     * @param tick Current Battle tick.
+     */
+    public void activate(float x, float y, boolean isFacingRight, long tick) {
         this.isFacingRight = isFacingRight;
-        this.ultPercent = ultPercent;
-        m_body.setGravityScale(0);
+        // Expires on the first tick after its lifetime has passed.
+        m_info.expireTick = tick + m_lifeTimeTicks + 1;
+        m_isDisposed = false;
+
+        m_position.set(x, y);
+        m_renderTransform.save();
+        m_velocity.set(0, 0);
+        m_isActive = true;
 
-        m_body.setGravityScale(0);
-        Vector2 updatedImpulse = new Vector2(isFacingRight ? impulse.x : -impulse.x, impulse.y);
-        m_body.applyLinearImpulse(updatedImpulse, startingPos, true);
+        if (m_config.isProjectile) {
+            float impulseX = isFacingRight ? m_config.impulse.x : -m_config.impulse.x;
+            m_velocity.set(impulseX / MASS, m_config.impulse.y / MASS);
 
-        if (bringFighter) {
-            user.getBody().applyLinearImpulse(updatedImpulse, startingPos, true);
+            if (m_config.bringFighter) {
+                m_info.user.getBody().applyLinearImpulse(impulseX, m_config.impulse.y, x, y, true);
+            }
         }
     }
 
-    public void dispose() {
-         m_fixture.setUserData(MyGdxGame.entityCategory.Destroy);
+
+    /**
+     * Moves the hitbox by its velocity over one step, Attacks aren't affected by gravity.
+     */
+    public void step(float timeStep) {
+        m_position.mulAdd(m_velocity, timeStep);
+    }
+
+
+    /**
+     * Deactivates the hitbox, the HitboxPool can hand it out again.
+     */
+    public void free() {
+        m_isActive = false;
+        m_isDisposed = false;
+    }
+
+
+    public boolean isActive() {
+        return m_isActive;
+    }
+
+    /**
+     * @return If the Attack has hit and is waiting in the DestructionQueue.
+     */
+    public boolean isDisposed() {
+        return m_isDisposed;
+    }
+
+    public void setDisposed(boolean value) {
+        m_isDisposed = value;
+    }
+
+    public AttackInfo getInfo() {
+        return m_info;
+    }
+
+    public Fighter.AttackConfig getConfig() {
+        return m_config;
+    }
+
+    /**
+     * @return Center of the hitbox.
+     */
+    public Vector2 getPosition() {
+        return m_position;
+    }
+
+    /**
+     * @return Half of the hitbox's width and height.
+     */
+    public Vector2 getHalfSize() {
+        return m_config.size;
+    }
+
+    /**
+     * @return Position before the last World step, for drawing between ticks.
+     */
+    public RenderTransform getRenderTransform() {
+        return m_renderTransform;
+    }
+
+    /**
+     * Copies the simulation state into the given State, without allocating.
+     */
+    public void saveState(State state) {
+        state.isActive = m_isActive;
+        state.isFacingRight = isFacingRight;
+        state.expireTick = m_info.expireTick;
+        state.x = m_position.x;
+        state.y = m_position.y;
+        state.velocityX = m_velocity.x;
+        state.velocityY = m_velocity.y;
+    }
+
+    /**
+     * Sets the simulation state back to a saved State.
+     */
+    public void restoreState(State state) {
+        if (!state.isActive) {
+            if (m_isActive) free();
+            return;
+        }
+        isFacingRight = state.isFacingRight;
+        m_info.expireTick = state.expireTick;
+        m_isDisposed = false;
+        m_isActive = true;
+        m_position.set(state.x, state.y);
+        m_velocity.set(state.velocityX, state.velocityY);
+        m_renderTransform.save();
     }
 }
@@ -1,17 +1,11 @@
 package com.mygdx.game;
 
-import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.g2d.Animation;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
-import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
 import com.badlogic.gdx.math.Vector2;
-import com.badlogic.gdx.physics.box2d.Body;
-import com.badlogic.gdx.physics.box2d.Fixture;
-import com.badlogic.gdx.physics.box2d.PolygonShape;
-import com.badlogic.gdx.physics.box2d.Shape;
 import com.badlogic.gdx.utils.Array;
-import com.mygdx.game.PlayerController.ControllerType;
+import com.badlogic.gdx.utils.GdxRuntimeException;
 
 
 /**
@@ -22,9 +16,22 @@ import com.mygdx.game.PlayerController.ControllerType;
  */
 public class Battle {
 
+    /**
+     * Sets the Players' inputs before each resimulated tick, for Remote PlayerControllers.
+     */
+    public interface InputProvider {
+        /**
+         * @param tick The tick about to be simulated.
+         */
+        void setInputs(long tick);
+    }
+
     /** Controllers for each player. */
     private final PlayerController[] m_controllers;
 
+    /** World, HitboxWorld and entities the Battle simulates in. */
+    private final SimulationContext m_context;
+
     /** World Objects */
     private final Arena m_arena;
 
@@ -32,53 +39,113 @@ public class Battle {
     private final BattleConfig m_config;
     private final Fighter[] m_fighters;
     private final int[] m_stocks;
-    private final float m_startTime;
 
-    /** If the startTime in Arena has been set. */
-    private boolean m_setStartTime;
+    /** Number of fixed steps simulated since the Battle started, the clock every gameplay timer counts in. */
+    private long m_tick;
+
+    /** Tick the Time Limit runs out on, -1 without one. */
+    private final long m_timeLimitTick;
+
+    /** Frees Attacks once their lifetime is over, from the context. */
+    private final ExpiryScheduler m_expiryScheduler;
+
+    /** Entities to remove, drained after each World step, from the context. */
+    private final DestructionQueue m_destructionQueue;
+
+    /** Records the Players' inputs each tick, null when not recording. */
+    private InputRecorder m_inputRecorder;
 
     /** If the Battle has Concluded */
     public boolean isFinished;
 
+    /** Times the Battle's phases, from the context. */
+    private final TickProfiler m_profiler;
+
+    /** Blended position of what's being drawn, reused each draw. */
+    private final Vector2 m_drawPosition = new Vector2();
+
 
     /**
      * Constructor for the Battle Class.
+     * @param context Context the Fighters were created in.
      * @param fighters 
      * @param controllers
      */
-    public Battle(Fighter[] fighters, PlayerController[] controllers, BattleConfig config) {
+    public Battle(SimulationContext context, Fighter[] fighters, PlayerController[] controllers, BattleConfig config) {
+        this(context, fighters, controllers, config, false);
+    }
+
+
+    /**
+     * Constructor for the Battle Class.
+     * @param context Context the Fighters were created in.
+     * @param fighters
+     * @param controllers
+     * @param headless if true the Arena loads no Textures or UI, the Battle can only be ticked, not drawn.
+     */
+    public Battle(SimulationContext context, Fighter[] fighters, PlayerController[] controllers, BattleConfig config, boolean headless) {
         // Setup Battle
+        m_context = context;
         m_config = config;
-        m_arena = new Arena(fighters.length); // Will eventually be set with an index to determine the Arena.
+        m_timeLimitTick = (config.timeLimit == -1) ? -1 : (long) Math.ceil(config.timeLimit * MyGdxGame.TICKS_PER_SECOND);
+        m_arena = new Arena(context, fighters.length, headless); // Will eventually be set with an index to determine the Arena.
         m_fighters = fighters;
         m_controllers = controllers;
         m_stocks = new int[m_fighters.length];
         Vector2[] startingPositions = m_arena.getStartingPositions();
+        m_expiryScheduler = context.getExpiryScheduler();
+        m_destructionQueue = context.getDestructionQueue();
+        m_profiler = context.getProfiler();
 
         // Setup Fighters
         for (int i = 0; i < m_fighters.length; i++) {
+            if (m_fighters[i].getContext() != context) throw new GdxRuntimeException("Fighter " + i + " was created in another context");
             m_fighters[i].getBody().setTransform(startingPositions[i], 0);
+            m_fighters[i].getRenderTransform().save();
             m_stocks[i] = m_config.stocks;
         }
 
-        m_startTime = (m_config.timeLimit == -1) ? 0 : System.nanoTime();
-        m_setStartTime = false;
+        m_tick = 0;
+    }
+
+
+    /**
+     * Advances the Battle by one fixed step, stepping the World then updating the Battle logic.
+     * Independent of the Render Loop, so the Battle can be simulated as fast as the CPU allows.
+     */
+    public void tick() {
+        if (isFinished) return;
+
+        saveRenderTransforms();
+        m_context.step();
+        m_tick++;
+        update();
+        if (m_inputRecorder != null) m_inputRecorder.record(m_tick, m_controllers);
+    }
+
+
+    /**
+     * Samples the local inputs, once per rendered frame before its ticks.
+     * Dead Fighters aren't polled, so they don't sample either, presses don't wait for the respawn.
+     */
+    public void sampleInputs() {
+        for (PlayerController controller : m_controllers) {
+            if (!controller.getFighter().isDead) controller.getInputSource().sample();
+        }
     }
 
 
     /**
-     *  Update method, run periodically in the Render Loop.
+     *  Update method, run once per tick.
      *  For Logic, not Graphics
      */
     public void update() {
-        if (!m_setStartTime) {
-            m_setStartTime = true;
-            m_arena.setStartTime(System.nanoTime());
-        }
+        long start = m_profiler.begin();
         for (PlayerController controller : m_controllers) {
-            if (!controller.getFighter().isDead) controller.update();
+            if (!controller.getFighter().isDead) controller.update(m_tick);
         }
-        m_arena.update(m_fighters, m_stocks, m_config.timeLimit);
+        m_profiler.end(TickProfiler.Phase.Input, start);
+        m_arena.update(m_fighters, m_stocks, m_config.timeLimit, getElapsedSeconds());
 
         // Death Checks
         for (int i = 0; i < m_fighters.length; i++) {
@@ -91,20 +158,21 @@ public class Battle {
                         fighter.setHealth(0);
                         fighter.getBody().setTransform(m_arena.getStartingPositions()[i], 0);
                         fighter.getBody().setLinearVelocity(0, 0);
+                        fighter.getRenderTransform().save();
                     }
                 }
             }
             else if (m_stocks[i] == 0 && !m_fighters[i].isDead) {
                 m_fighters[i].isDead = true;
-                m_fighters[i].getFixture().setUserData("MARKED FOR DELETION");
+                m_destructionQueue.add(m_fighters[i]);
                 System.out.println("Killed Fighter");
             }
         }
 
         // End Battle Checks
         // Timer
-        if (m_config.timeLimit != -1) {
-            if ((m_config.timeLimit - (System.nanoTime() - m_startTime) / 1000000000.0) <= 0) {
+        if (m_timeLimitTick != -1) {
+            if (m_tick >= m_timeLimitTick) {
                 // End Battle
                 System.out.println("Battle Ended");
                 isFinished = true;
@@ -126,68 +194,206 @@ public class Battle {
             }
         }
 
-        // Remove Dead Players, or Attacks.
-        Array<Body> bodies = new Array<>();
-        MyGdxGame.WORLD.getBodies(bodies);
-        for (Body body : bodies) {
-            for (Fixture fixture : body.getFixtureList()) {
-                if (fixture.getUserData() instanceof MyGdxGame.entityCategory && fixture.getUserData().equals(MyGdxGame.entityCategory.Destroy)) {
-                    MyGdxGame.WORLD.destroyBody(body);
-                }
-                else if (fixture.getUserData() instanceof Attack.AttackInfo) {
-                    Attack.AttackInfo info = (Attack.AttackInfo) fixture.getUserData();
-                    if (System.currentTimeMillis() > info.lifeTime) {
-                        MyGdxGame.WORLD.destroyBody(body);
-                    }
-                }
+        // Return expired Attacks to their Pools.
+        start = m_profiler.begin();
+        m_expiryScheduler.advance(m_tick);
+        m_profiler.end(TickProfiler.Phase.Cleanup, start);
+    }
+    
+
+    /**
+     * Saves where every Fighter and active Attack is before the World steps, to draw them between ticks.
+     */
+    private void saveRenderTransforms() {
+        for (Fighter fighter : m_fighters) {
+            fighter.getRenderTransform().save();
+            Array<Attack> attacks = fighter.getHitboxes().getAttacks();
+            for (int i = 0; i < attacks.size; i++) {
+                if (attacks.get(i).isActive()) attacks.get(i).getRenderTransform().save();
             }
         }
     }
-    
+
 
     /**
      * Objects to update in Render Loop.
      * For Graphics, not Logic
-     * @param spriteRenderer
+     * <p>
+     * Everything is drawn in one Batch pass: the Arena, the Fighters, their Shields then the UI.
+     * It only flushes when the Texture changes, and once for the UI's projection.
+     * @param spriteRenderer Batch with the World's projection, not begun.
+     * @param alpha Fraction of a tick since the last one, bodies are drawn that far between their previous and current positions.
      */
-    public void draw(SpriteBatch spriteRenderer, ShapeRenderer shapeRenderer) {
+    public void draw(SpriteBatch spriteRenderer, float alpha) {
+        long start = m_profiler.begin();
 
         spriteRenderer.begin();
         m_arena.drawWorld(spriteRenderer);
         for (int i = 0; i < m_fighters.length; i++) {
             Animation<TextureRegion> animation = m_controllers[i].getCurrentAnimation();
-            if (animation != null) {
+            if (animation != null && !m_fighters[i].isDead) {
                 TextureRegion currentFrame = animation.getKeyFrame(m_controllers[i].getStateTime(), true);
-                Vector2 pos = m_fighters[i].getBody().getPosition();
+                Vector2 pos = m_fighters[i].getRenderTransform().get(alpha, m_drawPosition);
                 Vector2 size = m_fighters[i].getDimensions();
 
-                if (!m_controllers[i].isFacingRight()) // Flip Orientation
-                    size.x = -size.x;
+                float width = m_controllers[i].isFacingRight() ? size.x : -size.x; // Flip Orientation
                 spriteRenderer.draw(
                         currentFrame,
-                        GDXHelper.convertBox2dPos(pos.x, size.x),
+                        GDXHelper.convertBox2dPos(pos.x, width),
                         GDXHelper.convertBox2dPos(pos.y, size.y),
-                        GDXHelper.convertBox2dSize(size.x),
+                        GDXHelper.convertBox2dSize(width),
                         GDXHelper.convertBox2dSize(size.y));
             }
         }
-        spriteRenderer.end();
 
-        shapeRenderer.begin();
         for (int i = 0; i < m_fighters.length; i++) {
             if (m_stocks[i] > 0 || m_stocks[i] == -1) {
                 Fighter fighter = m_fighters[i];
-                Vector2 pos = fighter.getBody().getPosition();
+                Vector2 pos = fighter.getRenderTransform().get(alpha, m_drawPosition);
                 Vector2 size = fighter.getDimensions();
                 // GDXHelper.drawRect(shapeRenderer, pos.x, pos.y, size.x, size.y);
                 if (fighter.getController().isGuarding()) {
-                    GDXHelper.drawCircle(shapeRenderer, pos.x + size.x / 2, pos.y + size.y / 2, size.y * (fighter.getController().getGuardPercent() / 100));
+                    // Placed where GDXHelper.drawCircle used to draw it.
+                    float radius = size.y * (fighter.getController().getGuardPercent() / 100);
+                    m_arena.drawShield(spriteRenderer, pos.x + size.x / 2 - radius, pos.y + size.y / 2 - radius, radius * 2);
                 }
             }
         }
-        shapeRenderer.end();
 
-        m_arena.drawUI();
+        long uiStart = m_profiler.begin();
+        m_arena.drawUI(spriteRenderer);
+        m_profiler.end(TickProfiler.Phase.UI, uiStart);
+        spriteRenderer.end();
+        m_profiler.end(TickProfiler.Phase.Draw, start);
+    }
+
+
+    /**
+     * Saves the simulation state of the tick, see BattleState.
+     * PRECONDITION: the World isn't stepping.
+     * @param state State sized for this Battle's Fighters, overwritten.
+     */
+    public void saveState(BattleState state) {
+        state.tick = m_tick;
+        state.isFinished = isFinished;
+        for (int i = 0; i < m_fighters.length; i++) {
+            state.stocks[i] = m_stocks[i];
+            m_fighters[i].saveState(state.fighters[i]);
+            m_controllers[i].saveState(state.controllers[i]);
+
+            Array<Attack> attacks = m_fighters[i].getHitboxes().getAttacks();
+            Array<Attack.State> attackStates = state.attacks.get(i);
+            while (attackStates.size < attacks.size) attackStates.add(new Attack.State());
+            for (int j = 0; j < attacks.size; j++) attacks.get(j).saveState(attackStates.get(j));
+        }
+    }
+
+
+    /**
+     * Puts the Battle back to a saved tick.
+     * PRECONDITION: the World isn't stepping.
+     * @param state State saved from this Battle.
+     */
+    public void restoreState(BattleState state) {
+        m_tick = state.tick;
+        isFinished = state.isFinished;
+        m_destructionQueue.clear();
+        m_expiryScheduler.reset(m_tick);
+
+        for (int i = 0; i < m_fighters.length; i++) {
+            Fighter fighter = m_fighters[i];
+            m_stocks[i] = state.stocks[i];
+            fighter.restoreState(state.fighters[i]);
+            m_controllers[i].restoreState(state.controllers[i]);
+
+            // Attacks created after the save didn't exist yet.
+            Array<Attack> attacks = fighter.getHitboxes().getAttacks();
+            Array<Attack.State> attackStates = state.attacks.get(i);
+            for (int j = 0; j < attacks.size; j++) {
+                Attack attack = attacks.get(j);
+                if (j < attackStates.size) attack.restoreState(attackStates.get(j));
+                else if (attack.isActive()) attack.free();
+                if (attack.isActive()) m_expiryScheduler.schedule(attack);
+            }
+
+            // Killed on the saved tick, but not removed yet.
+            if (fighter.isDead && fighter.getBody().isActive()) m_destructionQueue.add(fighter);
+        }
+        m_context.refreshContacts();
+    }
+
+
+    /**
+     * Restores a saved tick, then ticks forward again, for rolling back mispredicted inputs.
+     * @param state State to restart from.
+     * @param ticks Number of ticks to simulate after restoring.
+     * @param inputs Sets the inputs of each resimulated tick.
+     */
+    public void resimulate(BattleState state, int ticks, InputProvider inputs) {
+        restoreState(state);
+        for (int i = 0; i < ticks; i++) {
+            inputs.setInputs(m_tick + 1);
+            tick();
+        }
+    }
+
+
+    /**
+     * @return Number of ticks simulated since the Battle started.
+     */
+    public long getTick() {
+        return m_tick;
+    }
+
+
+    /**
+     * @return Stocks left per player, -1 for infinite.
+     */
+    public int[] getStocks() {
+        return m_stocks;
+    }
+
+    public SimulationContext getContext() {
+        return m_context;
+    }
+
+    public BattleConfig getConfig() {
+        return m_config;
+    }
+
+    public Fighter[] getFighters() {
+        return m_fighters;
+    }
+
+    public PlayerController[] getControllers() {
+        return m_controllers;
+    }
+
+    /**
+     * @param recorder Records the inputs of every following tick, null to stop recording.
+     */
+    public void setInputRecorder(InputRecorder recorder) {
+        m_inputRecorder = recorder;
+    }
+
+    public InputRecorder getInputRecorder() {
+        return m_inputRecorder;
+    }
+
+    public ExpiryScheduler getExpiryScheduler() {
+        return m_expiryScheduler;
+    }
+
+    public DestructionQueue getDestructionQueue() {
+        return m_destructionQueue;
+    }
+
+
+    /**
+     * @return Simulated time since the Battle started, in seconds.
+     */
+    public float getElapsedSeconds() {
+        return m_tick / (float) MyGdxGame.TICKS_PER_SECOND;
     }
 
 
@@ -221,10 +427,7 @@ public class Battle {
      *  Objects to dispose in Dispose.
      */
     public void dispose() {
-
-        for (Fighter fighter : m_fighters) {
-            fighter.getFixture().getShape().dispose();
-        }
+        for (Fighter fighter : m_fighters) fighter.dispose();
         m_arena.dispose();
     }
 }
@@ -16,6 +16,9 @@ public class BattleConfig {
     public float timeLimit = 300f; // -1 means no Time Limit. Seconds
     public GameMode gamemode = GameMode.FreeForAll;
 
+    /** If the Battle's state gets restored, for rollback and netplay. The World steps without warm starting or sleeping. */
+    public boolean isRollback = false;
+
     /**
      * Not given a Constructor that sets Variables because
      * Variables should be set separately with a Rules Menu on the Character Select Screen.
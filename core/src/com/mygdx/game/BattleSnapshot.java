@@ -0,0 +1,410 @@
+package com.mygdx.game;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Battle Snapshot Class
+ * Flat, versioned binary form of a Battle in progress, for save states, crash dumps and spectators.
+ * <p>
+ * Layout, little endian, starting at the buffer's position:
+ * a header, a fixed size record per Fighter and its PlayerController, then a record per active Attack.
+ * Fixed offsets let the Reader get any value straight from the buffer, without decoding the rest.
+ * <p>
+ * Writing and reading reuse a BattleState, neither allocates once it's sized.
+ */
+public class BattleSnapshot {
+
+    /** "BSNP" */
+    public static final int MAGIC = 0x424E5350;
+
+    /** Bump whenever the layout changes. */
+    public static final short VERSION = 5;
+
+    // Header
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 4;
+    private static final int FIGHTER_COUNT_OFFSET = 6;
+    private static final int TICK_OFFSET = 8;
+    private static final int FINISHED_OFFSET = 16;
+    private static final int TIME_LIMIT_OFFSET = 20;
+    private static final int ATTACK_COUNT_OFFSET = 24;
+    public static final int HEADER_SIZE = 28;
+
+    // Fighter record
+    private static final int STOCKS = 0;
+    private static final int X = 4;
+    private static final int Y = 8;
+    private static final int ANGLE = 12;
+    private static final int VELOCITY_X = 16;
+    private static final int VELOCITY_Y = 20;
+    private static final int ANGULAR_VELOCITY = 24;
+    private static final int HEALTH = 28;
+    private static final int ULT_METER = 32;
+    private static final int FIGHTER_FLAGS = 36;
+    private static final int CONTROLLER_FLAGS = 37;
+    private static final int ANIMATION = 38;
+    private static final int LAST_JUMP_TICK = 40;
+    private static final int PREVIOUS_Y = 48;
+    private static final int PREVIOUS_TICK = 52;
+    private static final int CONTROLLER_TICK = 60;
+    private static final int END_LAG = 68;
+    private static final int PREVIOUS_ATTACK_TICK = 76;
+    private static final int FALL_SPEED = 84;
+    private static final int GUARD_PERCENT = 88;
+    private static final int PREVIOUS_GUARD_TICK = 92;
+    private static final int STATE_TIME = 100;
+    private static final int DAMAGE_DEALT = 104;
+    public static final int FIGHTER_SIZE = 108;
+
+    // Attack record
+    private static final int ATTACK_FIGHTER = 0;
+    private static final int ATTACK_FLAGS = 1;
+    private static final int ATTACK_INDEX = 2;
+    private static final int EXPIRE_TICK = 4;
+    private static final int ATTACK_X = 12;
+    private static final int ATTACK_Y = 16;
+    private static final int ATTACK_VELOCITY_X = 20;
+    private static final int ATTACK_VELOCITY_Y = 24;
+    public static final int ATTACK_SIZE = 28;
+
+    // Flags
+    private static final int DEAD = 1;
+    private static final int AWAKE = 1 << 1;
+    private static final int ACTIVE = 1 << 2;
+    private static final int TOUCHING_GROUND = 1 << 3;
+    private static final int GROUNDED = 1;
+    private static final int DOUBLE_JUMP = 1 << 1;
+    private static final int FACING_RIGHT = 1 << 2;
+    private static final int GUARDING = 1 << 3;
+
+    private static final Fighter.Animations[] ANIMATIONS = Fighter.Animations.values();
+
+    /** Battle is saved into it, then encoded. */
+    private final BattleState m_state;
+
+
+    /**
+     * @param fighterCount Fighters in the Battles to snapshot.
+     */
+    public BattleSnapshot(int fighterCount) {
+        m_state = new BattleState(fighterCount);
+    }
+
+
+    /**
+     * @return Largest snapshot size, in bytes.
+     */
+    public static int getMaxSize(int fighterCount, int attackCount) {
+        return HEADER_SIZE + fighterCount * FIGHTER_SIZE + attackCount * ATTACK_SIZE;
+    }
+
+
+    /**
+     * Writes a snapshot of the Battle at the buffer's position, and moves the position past it.
+     * @param battle Battle with as many Fighters as this BattleSnapshot.
+     * @param buffer Buffer to write into, direct buffers are fastest.
+     */
+    public void write(Battle battle, ByteBuffer buffer) {
+        battle.saveState(m_state);
+        write(m_state, battle.getConfig().timeLimit, buffer);
+    }
+
+
+    /**
+     * Writes a saved BattleState at the buffer's position, and moves the position past it.
+     */
+    public static void write(BattleState state, float timeLimit, ByteBuffer buffer) {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        int base = buffer.position();
+        int fighterCount = state.fighters.length;
+
+        buffer.putInt(base + MAGIC_OFFSET, MAGIC);
+        buffer.putShort(base + VERSION_OFFSET, VERSION);
+        buffer.putShort(base + FIGHTER_COUNT_OFFSET, (short) fighterCount);
+        buffer.putLong(base + TICK_OFFSET, state.tick);
+        buffer.put(base + FINISHED_OFFSET, (byte) (state.isFinished ? 1 : 0));
+        buffer.putFloat(base + TIME_LIMIT_OFFSET, timeLimit);
+
+        for (int i = 0; i < fighterCount; i++) {
+            int at = base + HEADER_SIZE + i * FIGHTER_SIZE;
+            Fighter.State fighter = state.fighters[i];
+            PlayerController.State controller = state.controllers[i];
+
+            buffer.putInt(at + STOCKS, state.stocks[i]);
+            buffer.putFloat(at + X, fighter.x);
+            buffer.putFloat(at + Y, fighter.y);
+            buffer.putFloat(at + ANGLE, fighter.angle);
+            buffer.putFloat(at + VELOCITY_X, fighter.velocityX);
+            buffer.putFloat(at + VELOCITY_Y, fighter.velocityY);
+            buffer.putFloat(at + ANGULAR_VELOCITY, fighter.angularVelocity);
+            buffer.putFloat(at + HEALTH, fighter.health);
+            buffer.putFloat(at + ULT_METER, fighter.ultMeter);
+            buffer.put(at + FIGHTER_FLAGS, (byte) ((fighter.isDead ? DEAD : 0) | (fighter.isAwake ? AWAKE : 0) | (fighter.isActive ? ACTIVE : 0)
+                    | (fighter.isTouchingGround ? TOUCHING_GROUND : 0)));
+
+            buffer.put(at + CONTROLLER_FLAGS, (byte) ((controller.isGrounded ? GROUNDED : 0) | (controller.hasDoubleJump ? DOUBLE_JUMP : 0)
+                    | (controller.isFacingRight ? FACING_RIGHT : 0) | (controller.isGuarding ? GUARDING : 0)));
+            buffer.put(at + ANIMATION, (byte) controller.currentAnimation.ordinal());
+            buffer.putLong(at + LAST_JUMP_TICK, controller.lastJumpTick);
+            buffer.putFloat(at + PREVIOUS_Y, controller.previousY);
+            buffer.putLong(at + PREVIOUS_TICK, controller.previousTick);
+            buffer.putLong(at + CONTROLLER_TICK, controller.tick);
+            buffer.putLong(at + END_LAG, controller.endLag);
+            buffer.putLong(at + PREVIOUS_ATTACK_TICK, controller.previousAttackTick);
+            buffer.putFloat(at + FALL_SPEED, controller.fallSpeed);
+            buffer.putFloat(at + GUARD_PERCENT, controller.guardPercent);
+            buffer.putLong(at + PREVIOUS_GUARD_TICK, controller.previousGuardTick);
+            buffer.putFloat(at + STATE_TIME, controller.stateTime);
+            buffer.putFloat(at + DAMAGE_DEALT, fighter.damageDealt);
+        }
+
+        int attackCount = 0;
+        int attacksBase = base + HEADER_SIZE + fighterCount * FIGHTER_SIZE;
+        for (int i = 0; i < fighterCount; i++) {
+            Array<Attack.State> attacks = state.attacks.get(i);
+            for (int j = 0; j < attacks.size; j++) {
+                Attack.State attack = attacks.get(j);
+                if (!attack.isActive) continue;
+
+                int at = attacksBase + attackCount * ATTACK_SIZE;
+                buffer.put(at + ATTACK_FIGHTER, (byte) i);
+                buffer.put(at + ATTACK_FLAGS, (byte) (attack.isFacingRight ? FACING_RIGHT : 0));
+                buffer.putShort(at + ATTACK_INDEX, (short) j);
+                buffer.putLong(at + EXPIRE_TICK, attack.expireTick);
+                buffer.putFloat(at + ATTACK_X, attack.x);
+                buffer.putFloat(at + ATTACK_Y, attack.y);
+                buffer.putFloat(at + ATTACK_VELOCITY_X, attack.velocityX);
+                buffer.putFloat(at + ATTACK_VELOCITY_Y, attack.velocityY);
+                attackCount++;
+            }
+        }
+        buffer.putInt(base + ATTACK_COUNT_OFFSET, attackCount);
+        buffer.position(attacksBase + attackCount * ATTACK_SIZE);
+    }
+
+
+    /**
+     * Decodes a snapshot into a BattleState, to be restored with Battle.restoreState.
+     * @param reader Reader over the snapshot.
+     * @param state State with as many Fighters as the snapshot, overwritten.
+     */
+    public static void read(Reader reader, BattleState state) {
+        state.tick = reader.getTick();
+        state.isFinished = reader.isFinished();
+        for (int i = 0; i < state.fighters.length; i++) {
+            Fighter.State fighter = state.fighters[i];
+            PlayerController.State controller = state.controllers[i];
+            state.stocks[i] = reader.getStocks(i);
+            fighter.x = reader.getX(i);
+            fighter.y = reader.getY(i);
+            fighter.angle = reader.getFloat(i, ANGLE);
+            fighter.velocityX = reader.getVelocityX(i);
+            fighter.velocityY = reader.getVelocityY(i);
+            fighter.angularVelocity = reader.getFloat(i, ANGULAR_VELOCITY);
+            fighter.health = reader.getHealth(i);
+            fighter.ultMeter = reader.getUltMeter(i);
+            int flags = reader.getByte(i, FIGHTER_FLAGS);
+            fighter.isDead = (flags & DEAD) != 0;
+            fighter.isAwake = (flags & AWAKE) != 0;
+            fighter.isActive = (flags & ACTIVE) != 0;
+            fighter.isTouchingGround = (flags & TOUCHING_GROUND) != 0;
+
+            flags = reader.getByte(i, CONTROLLER_FLAGS);
+            controller.isGrounded = (flags & GROUNDED) != 0;
+            controller.hasDoubleJump = (flags & DOUBLE_JUMP) != 0;
+            controller.isFacingRight = (flags & FACING_RIGHT) != 0;
+            controller.isGuarding = (flags & GUARDING) != 0;
+            controller.currentAnimation = reader.getAnimation(i);
+            controller.lastJumpTick = reader.getLong(i, LAST_JUMP_TICK);
+            controller.previousY = reader.getFloat(i, PREVIOUS_Y);
+            controller.previousTick = reader.getLong(i, PREVIOUS_TICK);
+            controller.tick = reader.getLong(i, CONTROLLER_TICK);
+            controller.endLag = reader.getLong(i, END_LAG);
+            controller.previousAttackTick = reader.getLong(i, PREVIOUS_ATTACK_TICK);
+            controller.fallSpeed = reader.getFloat(i, FALL_SPEED);
+            controller.guardPercent = reader.getGuardPercent(i);
+            controller.previousGuardTick = reader.getLong(i, PREVIOUS_GUARD_TICK);
+            controller.stateTime = reader.getFloat(i, STATE_TIME);
+            fighter.damageDealt = reader.getDamageDealt(i);
+
+            Array<Attack.State> attacks = state.attacks.get(i);
+            for (int j = 0; j < attacks.size; j++) attacks.get(j).isActive = false;
+        }
+
+        for (int j = 0; j < reader.getAttackCount(); j++) {
+            Array<Attack.State> attacks = state.attacks.get(reader.getAttackFighter(j));
+            int index = reader.getAttackIndex(j);
+            while (attacks.size <= index) attacks.add(new Attack.State());
+
+            Attack.State attack = attacks.get(index);
+            int flags = reader.getAttackByte(j, ATTACK_FLAGS);
+            attack.isActive = true;
+            attack.isFacingRight = (flags & FACING_RIGHT) != 0;
+            attack.expireTick = reader.getAttackExpireTick(j);
+            attack.x = reader.getAttackX(j);
+            attack.y = reader.getAttackY(j);
+            attack.velocityX = reader.getAttackFloat(j, ATTACK_VELOCITY_X);
+            attack.velocityY = reader.getAttackFloat(j, ATTACK_VELOCITY_Y);
+        }
+    }
+
+
+    /**
+     * Flyweight over a snapshot in a ByteBuffer, values are read in place without copying.
+     * Can be pointed at another snapshot with wrap, to reuse it.
+     */
+    public static class Reader {
+
+        private ByteBuffer m_buffer;
+        private int m_base;
+        private int m_attacksBase;
+
+
+        /**
+         * Points the Reader at the snapshot starting at the buffer's position.
+         * @throws GdxRuntimeException If the buffer doesn't hold a snapshot of this version.
+         */
+        public Reader wrap(ByteBuffer buffer) {
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            m_buffer = buffer;
+            m_base = buffer.position();
+            if (buffer.getInt(m_base + MAGIC_OFFSET) != MAGIC) throw new GdxRuntimeException("Not a Battle snapshot");
+            if (buffer.getShort(m_base + VERSION_OFFSET) != VERSION) throw new GdxRuntimeException("Battle snapshot version " + buffer.getShort(m_base + VERSION_OFFSET) + " isn't supported");
+            m_attacksBase = m_base + HEADER_SIZE + getFighterCount() * FIGHTER_SIZE;
+            return this;
+        }
+
+        /** @return Size of the snapshot, in bytes. */
+        public int getSize() {
+            return m_attacksBase - m_base + getAttackCount() * ATTACK_SIZE;
+        }
+
+        public int getFighterCount() {
+            return m_buffer.getShort(m_base + FIGHTER_COUNT_OFFSET);
+        }
+
+        public long getTick() {
+            return m_buffer.getLong(m_base + TICK_OFFSET);
+        }
+
+        public boolean isFinished() {
+            return m_buffer.get(m_base + FINISHED_OFFSET) != 0;
+        }
+
+        /** @return Time Limit in seconds, -1 for none. */
+        public float getTimeLimit() {
+            return m_buffer.getFloat(m_base + TIME_LIMIT_OFFSET);
+        }
+
+        /** @return Simulated time since the Battle started, in seconds. */
+        public float getElapsedSeconds() {
+            return getTick() / (float) MyGdxGame.TICKS_PER_SECOND;
+        }
+
+        public int getStocks(int fighter) {
+            return m_buffer.getInt(m_base + HEADER_SIZE + fighter * FIGHTER_SIZE + STOCKS);
+        }
+
+        public float getX(int fighter) {
+            return getFloat(fighter, X);
+        }
+
+        public float getY(int fighter) {
+            return getFloat(fighter, Y);
+        }
+
+        public float getVelocityX(int fighter) {
+            return getFloat(fighter, VELOCITY_X);
+        }
+
+        public float getVelocityY(int fighter) {
+            return getFloat(fighter, VELOCITY_Y);
+        }
+
+        public float getHealth(int fighter) {
+            return getFloat(fighter, HEALTH);
+        }
+
+        public float getUltMeter(int fighter) {
+            return getFloat(fighter, ULT_METER);
+        }
+
+        public float getDamageDealt(int fighter) {
+            return getFloat(fighter, DAMAGE_DEALT);
+        }
+
+        public boolean isDead(int fighter) {
+            return (getByte(fighter, FIGHTER_FLAGS) & DEAD) != 0;
+        }
+
+        public boolean isGrounded(int fighter) {
+            return (getByte(fighter, CONTROLLER_FLAGS) & GROUNDED) != 0;
+        }
+
+        public boolean isFacingRight(int fighter) {
+            return (getByte(fighter, CONTROLLER_FLAGS) & FACING_RIGHT) != 0;
+        }
+
+        public boolean isGuarding(int fighter) {
+            return (getByte(fighter, CONTROLLER_FLAGS) & GUARDING) != 0;
+        }
+
+        public float getGuardPercent(int fighter) {
+            return getFloat(fighter, GUARD_PERCENT);
+        }
+
+        public Fighter.Animations getAnimation(int fighter) {
+            return ANIMATIONS[getByte(fighter, ANIMATION)];
+        }
+
+        public int getAttackCount() {
+            return m_buffer.getInt(m_base + ATTACK_COUNT_OFFSET);
+        }
+
+        /** @return Index of the Fighter the Attack belongs to. */
+        public int getAttackFighter(int attack) {
+            return getAttackByte(attack, ATTACK_FIGHTER);
+        }
+
+        /** @return Index of the Attack in its Fighter's HitboxPool. */
+        public int getAttackIndex(int attack) {
+            return m_buffer.getShort(m_attacksBase + attack * ATTACK_SIZE + ATTACK_INDEX);
+        }
+
+        public long getAttackExpireTick(int attack) {
+            return m_buffer.getLong(m_attacksBase + attack * ATTACK_SIZE + EXPIRE_TICK);
+        }
+
+        public float getAttackX(int attack) {
+            return getAttackFloat(attack, ATTACK_X);
+        }
+
+        public float getAttackY(int attack) {
+            return getAttackFloat(attack, ATTACK_Y);
+        }
+
+        private float getFloat(int fighter, int offset) {
+            return m_buffer.getFloat(m_base + HEADER_SIZE + fighter * FIGHTER_SIZE + offset);
+        }
+
+        private long getLong(int fighter, int offset) {
+            return m_buffer.getLong(m_base + HEADER_SIZE + fighter * FIGHTER_SIZE + offset);
+        }
+
+        private int getByte(int fighter, int offset) {
+            return m_buffer.get(m_base + HEADER_SIZE + fighter * FIGHTER_SIZE + offset) & 0xFF;
+        }
+
+        private float getAttackFloat(int attack, int offset) {
+            return m_buffer.getFloat(m_attacksBase + attack * ATTACK_SIZE + offset);
+        }
+
+        private int getAttackByte(int attack, int offset) {
+            return m_buffer.get(m_attacksBase + attack * ATTACK_SIZE + offset) & 0xFF;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.mygdx.game;
+
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Battle State Class
+ * Everything needed to put a Battle back to the tick it was saved on, for rollback.
+ * <p>
+ * Allocated once per Battle and reused, saving and restoring don't allocate
+ * unless a Fighter's HitboxPool has grown since the last save.
+ * Box2D's contacts aren't part of the state. A restore has the World look for new contacts before its next step,
+ * and Fighters are grounded from whether contacts touch, which only depends on where the bodies are. Rollback
+ * Worlds don't warm start, so contacts left over from a later tick carry no impulses into the next step.
+ */
+public class BattleState {
+
+    long tick;
+    boolean isFinished;
+    final int[] stocks;
+    final Fighter.State[] fighters;
+    final PlayerController.State[] controllers;
+
+    /** Attack States of each Fighter, in the order of their HitboxPool's Attacks. */
+    final Array<Array<Attack.State>> attacks;
+
+
+    /**
+     * @param fighterCount Fighters in the Battle.
+     */
+    public BattleState(int fighterCount) {
+        stocks = new int[fighterCount];
+        fighters = new Fighter.State[fighterCount];
+        controllers = new PlayerController.State[fighterCount];
+        attacks = new Array<>(fighterCount);
+        for (int i = 0; i < fighterCount; i++) {
+            fighters[i] = new Fighter.State();
+            controllers[i] = new PlayerController.State();
+            attacks.add(new Array<Attack.State>());
+        }
+    }
+
+
+    /**
+     * @return Tick the State was saved on.
+     */
+    public long getTick() {
+        return tick;
+    }
+
+
+    /**
+     * Hashes the simulation values, for comparing States between peers.
+     * @return Checksum of the State.
+     */
+    public long checksum() {
+        long hash = tick;
+        hash = mix(hash, isFinished ? 1 : 0);
+        for (int i = 0; i < fighters.length; i++) {
+            Fighter.State fighter = fighters[i];
+            hash = mix(hash, stocks[i]);
+            hash = mix(hash, Float.floatToIntBits(fighter.x));
+            hash = mix(hash, Float.floatToIntBits(fighter.y));
+            hash = mix(hash, Float.floatToIntBits(fighter.velocityX));
+            hash = mix(hash, Float.floatToIntBits(fighter.velocityY));
+            hash = mix(hash, Float.floatToIntBits(fighter.health));
+            hash = mix(hash, Float.floatToIntBits(fighter.ultMeter));
+            hash = mix(hash, fighter.isDead ? 1 : 0);
+            hash = mix(hash, fighter.isTouchingGround ? 1 : 0);
+
+            PlayerController.State controller = controllers[i];
+            hash = mix(hash, controller.isGrounded ? 1 : 0);
+            hash = mix(hash, controller.hasDoubleJump ? 1 : 0);
+            hash = mix(hash, controller.isGuarding ? 1 : 0);
+            hash = mix(hash, Float.floatToIntBits(controller.guardPercent));
+            hash = mix(hash, controller.endLag);
+            hash = mix(hash, controller.previousAttackTick);
+
+            Array<Attack.State> attackStates = attacks.get(i);
+            for (int j = 0; j < attackStates.size; j++) {
+                Attack.State attack = attackStates.get(j);
+                if (!attack.isActive) continue;
+                hash = mix(hash, j);
+                hash = mix(hash, attack.expireTick);
+                hash = mix(hash, Float.floatToIntBits(attack.x));
+                hash = mix(hash, Float.floatToIntBits(attack.y));
+            }
+        }
+        return hash;
+    }
+
+
+    private static long mix(long hash, long value) {
+        return (hash ^ value) * 0x100000001B3L;
+    }
+}
@@ -2,6 +2,7 @@ package com.mygdx.game;
 
 
 import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.assets.AssetManager;
 import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.FixtureDef;
@@ -15,6 +16,12 @@ import java.util.ArrayList;
 
 public class CharacterSelect {
 
+    /** Time spent loading assets each frame, keeps the Selection Screen responsive while Fighters stream in. */
+    public static final int LOADING_BUDGET_MILLIS = 8;
+
+    /** Loads highlighted Fighters in the background, configured with a FighterConfigLoader. */
+    private final AssetManager m_assetManager;
+
     /** Fighter Selection indexes, better than storing Fighters that might get changed in Selector. */
     private final ArrayList<Integer> m_selectionIndexs;
 
@@ -33,15 +40,18 @@ public class CharacterSelect {
      * Once the characters are selected for each player, the isFinished
      * method will return the Fighters selected.
      */
-    public CharacterSelect() {
+    public CharacterSelect(AssetManager assetManager) {
+        m_assetManager = assetManager;
         m_players = 2;
         m_selectionIndexs = new ArrayList<>();
         m_controllerTypes = new ArrayList<>();
 
-        m_selectionIndexs.add(0, 0);
+        m_selectionIndexs.add(0, -1);
         m_controllerTypes.add(0, PlayerController.ControllerType.Keyboard);
-        m_selectionIndexs.add(1, 1);
+        m_selectionIndexs.add(1, -1);
         m_controllerTypes.add(1, PlayerController.ControllerType.Controller);
+        highlight(0, 0);
+        highlight(1, 1);
         m_ready = true;
 
         // Add a Listener to a Fighter Button
@@ -63,17 +73,105 @@ public class CharacterSelect {
 
 
     /**
-     * Parses Fighters Folder for JSON
+     * Highlights a Fighter for a Player, starting to load it in the background.
+     * The previously highlighted Fighter is unloaded if no other Player has it highlighted.
+     *
+     * @param player Player index
+     * @param i Fighter index number
+     */
+    public void highlight(int player, int i) {
+        int previous = m_selectionIndexs.get(player);
+        if (previous == i) return;
+
+        m_selectionIndexs.set(player, i);
+        if (!m_assetManager.contains(getFighterPath(i))) {
+            m_assetManager.load(getFighterPath(i), Fighter.FighterConfig.class);
+        }
+        if (previous >= 0 && !m_selectionIndexs.contains(previous)) {
+            m_assetManager.unload(getFighterPath(previous));
+        }
+    }
+
+
+    /**
+     * Continues loading the highlighted Fighters, should be called every frame.
+     * @return If every highlighted Fighter is loaded.
+     */
+    public boolean updateLoading() {
+        return m_assetManager.update(LOADING_BUDGET_MILLIS);
+    }
+
+
+    /**
+     * @return Loading progress of the highlighted Fighters, from 0 to 1.
+     */
+    public float getLoadingProgress() {
+        return m_assetManager.getProgress();
+    }
+
+
+    /**
+     * Unloads the highlighted Fighters' data, once the Battle's Fighters hold their Animations.
+     */
+    public void unloadFighters() {
+        for (int i = 0; i < m_selectionIndexs.size(); i++) {
+            int index = m_selectionIndexs.get(i);
+            if (index >= 0 && m_selectionIndexs.indexOf(index) == i) m_assetManager.unload(getFighterPath(index));
+            m_selectionIndexs.set(i, -1);
+        }
+    }
+
+
+    /**
+     * @param i Fighter index number
+     * @return path of the Fighter's JSON data
+     */
+    public static String getFighterPath(int i) {
+        return "Fighters/Fighter" + i + ".json";
+    }
+
+
+    /**
+     * Parses a Fighter's JSON data without creating the Fighter.
      *
-     * @param json configuration Json object
+     * @param json configuration Json object, from createFighterJson()
      * @param i Fighter index number
-     * @return Fighter Class created from JSON data
+     * @return FighterConfig parsed from the Fighters folder
      */
-    private Fighter getFighter(Json json, int i) {
+    public static Fighter.FighterConfig getFighterConfig(Json json, int i) {
         // Get Fighter Data
-        FileHandle fh = Gdx.files.internal("Fighters/Fighter"+i+".json");
-        Fighter.FighterConfig config = json.fromJson(Fighter.FighterConfig.class, fh);
-        return new Fighter(config);
+        FileHandle fh = Gdx.files.internal(getFighterPath(i));
+        return loadFighterConfig(json, fh);
+    }
+
+
+    /**
+     * Reads a Fighter's compiled data if the compileFighters task made it from the current JSON, falling back to the JSON.
+     *
+     * @param json configuration Json object, from createFighterJson()
+     * @param jsonFile Fighter's JSON file
+     * @return FighterConfig of the Fighter
+     */
+    public static Fighter.FighterConfig loadFighterConfig(Json json, FileHandle jsonFile) {
+        FileHandle binaryFile = FighterBinary.getBinaryFile(jsonFile);
+        if (binaryFile.exists()) {
+            Fighter.FighterConfig config = FighterBinary.read(binaryFile, FighterBinary.hashSource(jsonFile));
+            if (config != null) return config;
+            System.out.println(binaryFile.path() + " is out of date, reading JSON instead. Run compileFighters to update it.");
+        }
+        return json.fromJson(Fighter.FighterConfig.class, jsonFile);
+    }
+
+
+    /**
+     * @return Json object setup to parse Fighter Data.
+     */
+    public static Json createFighterJson() {
+        Json json = new Json();
+        json.setUsePrototypes(false);
+        json.setOutputType(JsonWriter.OutputType.json);
+        json.setElementType(Fighter.FighterConfig.class, "attackConfigs", Fighter.AttackConfig.class);
+        return json;
     }
 
     /**
@@ -86,22 +184,31 @@ public class CharacterSelect {
     }
 
 
+    /**
+     * @return Fighter index number highlighted by each Player, -1 if none.
+     */
+    public int[] getSelectionIndexes() {
+        int[] indexes = new int[m_selectionIndexs.size()];
+        for (int i = 0; i < indexes.length; i++) indexes[i] = m_selectionIndexs.get(i);
+        return indexes;
+    }
+
+
     /**
      * PRECONDITION : isFinished is true.
-     * @return Generated Fighters from Json files.
+     * Fighters that haven't finished loading in the background are finished on the spot.
+     * @param context Context the Battle will simulate in.
+     * @param animationCache Cache the Fighters share their Animations from.
+     * @return Generated Fighters from the loaded Json files.
      */
-    public Fighter[] getFighters() {
+    public Fighter[] getFighters(SimulationContext context, AnimationCache animationCache) {
         if (!isFinished()) return null;
 
-        // Setup Json Config for Fighter Data
-        Json json = new Json();
-        json.setUsePrototypes(false);
-        json.setOutputType(JsonWriter.OutputType.json);
-        json.setElementType(Fighter.FighterConfig.class, "attackConfigs", Fighter.AttackConfig.class);
-
         Fighter[] fighters = new Fighter[m_players];
         for (int i = 0; i < m_players; i++) {
-            fighters[i] = getFighter(json, m_selectionIndexs.get(i));
+            String path = getFighterPath(m_selectionIndexs.get(i));
+            m_assetManager.finishLoadingAsset(path);
+            fighters[i] = new Fighter(context, m_assetManager.get(path, Fighter.FighterConfig.class), animationCache);
         }
         return fighters;
     }
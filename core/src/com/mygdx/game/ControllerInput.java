@@ -0,0 +1,49 @@
+package com.mygdx.game;
+
+import org.libsdl.SDL;
+import org.libsdl.SDL_Error;
+
+import uk.co.electronstudio.sdl2gdx.SDL2Controller;
+import uk.co.electronstudio.sdl2gdx.SDL2ControllerManager;
+
+/**
+ * Controller Input Class
+ * Samples an SDL game controller, read once per tick.
+ * Without a controller plugged in it stays neutral.
+ */
+public class ControllerInput implements InputSource {
+
+    private final SDL2Controller m_controller;
+
+
+    /**
+     * @param index SDL device index.
+     */
+    public ControllerInput(int index) {
+        SDL2Controller controller;
+        try {
+            controller = new SDL2Controller(new SDL2ControllerManager(), index);
+        } catch (SDL_Error e) {
+            controller = null;
+        }
+        m_controller = controller;
+    }
+
+
+    @Override
+    public int poll(long tick) {
+        if (m_controller == null) return InputFrame.NEUTRAL;
+
+        boolean smash = m_controller.getButton(SDL.SDL_CONTROLLER_BUTTON_B);
+        boolean special = m_controller.getButton(SDL.SDL_CONTROLLER_BUTTON_Y);
+        int buttons = 0;
+        if (m_controller.getButton(SDL.SDL_CONTROLLER_BUTTON_A)) buttons |= InputFrame.JUMP;
+        if (m_controller.getButton(SDL.SDL_CONTROLLER_BUTTON_RIGHTSHOULDER)) buttons |= InputFrame.GUARD;
+        if (m_controller.getButton(SDL.SDL_CONTROLLER_BUTTON_X)) buttons |= InputFrame.BASIC;
+        if (special) buttons |= InputFrame.SPECIAL;
+        if (smash) buttons |= InputFrame.SMASH;
+        if (smash && special) buttons |= InputFrame.ULTIMATE;
+        return InputFrame.of(buttons,
+                m_controller.getAxis(SDL.SDL_CONTROLLER_AXIS_LEFTX), m_controller.getAxis(SDL.SDL_CONTROLLER_AXIS_LEFTY));
+    }
+}
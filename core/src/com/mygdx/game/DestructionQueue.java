@@ -0,0 +1,73 @@
+package com.mygdx.game;
+
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Destruction Queue Class
+ * Entities to remove from the simulation, queued by the HitboxWorld and gameplay code,
+ * then removed in one batch after the World step and the hit tests.
+ * <p>
+ * Nothing is removed in the middle of a tick, so every hit test and Battle check sees the entities the tick
+ * started with, and rolling back only has to clear the queue.
+ */
+public class DestructionQueue {
+
+    private final ExpiryScheduler m_expiryScheduler;
+    private final Array<Attack> m_attacks = new Array<>(false, 16);
+    private final Array<Fighter> m_fighters = new Array<>(false, 4);
+
+
+    /**
+     * @param expiryScheduler Attacks removed early are cancelled from it.
+     */
+    public DestructionQueue(ExpiryScheduler expiryScheduler) {
+        m_expiryScheduler = expiryScheduler;
+    }
+
+
+    /**
+     * Queues an Attack that hit, it stops hitting until it's freed.
+     * Attacks already queued or inactive are ignored.
+     */
+    public void add(Attack attack) {
+        if (attack.isDisposed() || !attack.isActive()) return;
+        attack.setDisposed(true);
+        m_attacks.add(attack);
+    }
+
+
+    /**
+     * Queues a Fighter that's out of the Battle, its body is deactivated.
+     */
+    public void add(Fighter fighter) {
+        m_fighters.add(fighter);
+    }
+
+
+    /**
+     * Removes everything queued.
+     * PRECONDITION: the World isn't stepping.
+     */
+    public void drain() {
+        for (int i = 0; i < m_attacks.size; i++) {
+            Attack attack = m_attacks.get(i);
+            m_expiryScheduler.cancel(attack);
+            attack.free();
+        }
+        for (int i = 0; i < m_fighters.size; i++) {
+            m_fighters.get(i).getBody().setActive(false);
+        }
+        m_attacks.clear();
+        m_fighters.clear();
+    }
+
+
+    /**
+     * Forgets everything queued without removing it.
+     */
+    public void clear() {
+        for (int i = 0; i < m_attacks.size; i++) m_attacks.get(i).setDisposed(false);
+        m_attacks.clear();
+        m_fighters.clear();
+    }
+}
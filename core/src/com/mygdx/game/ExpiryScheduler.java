@@ -0,0 +1,83 @@
+package com.mygdx.game;
+
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Expiry Scheduler Class
+ * Timing wheel of active Attacks, keyed by the tick they expire on.
+ * <p>
+ * Each tick only looks at the Attacks in that tick's slot, so expiring costs O(expiring)
+ * instead of scanning every body in the World. Time only moves when the Battle ticks,
+ * so a paused Battle expires nothing and a fast-forwarded one expires every tick in order.
+ */
+public class ExpiryScheduler {
+
+    /** Slots in the wheel, a power of two. Lifetimes longer than this wrap around and wait. */
+    private static final int WHEEL_SIZE = 512;
+    private static final int MASK = WHEEL_SIZE - 1;
+
+    private final Array<Array<Attack>> m_slots;
+
+    /** Last tick that was advanced to. */
+    private long m_tick;
+
+
+    public ExpiryScheduler() {
+        m_slots = new Array<>(WHEEL_SIZE);
+        for (int i = 0; i < WHEEL_SIZE; i++) m_slots.add(new Array<Attack>(false, 4));
+        m_tick = 0;
+    }
+
+
+    /**
+     * Schedules an active Attack to be freed on its expire tick.
+     */
+    public void schedule(Attack attack) {
+        getSlot(attack.getInfo().expireTick).add(attack);
+    }
+
+
+    /**
+     * Removes an Attack that was freed before it expired.
+     */
+    public void cancel(Attack attack) {
+        getSlot(attack.getInfo().expireTick).removeValue(attack, true);
+    }
+
+
+    /**
+     * Frees every Attack that expires up to and including the given tick.
+     * PRECONDITION: the World isn't stepping.
+     * @param tick current Battle tick.
+     */
+    public void advance(long tick) {
+        // Past a full turn of the wheel every slot only needs visiting once.
+        long from = Math.max(m_tick + 1, tick - MASK);
+        for (long t = from; t <= tick; t++) {
+            Array<Attack> slot = getSlot(t);
+            for (int i = slot.size - 1; i >= 0; i--) {
+                Attack attack = slot.get(i);
+                if (attack.getInfo().expireTick <= tick) {
+                    slot.removeIndex(i);
+                    attack.free();
+                }
+            }
+        }
+        m_tick = Math.max(m_tick, tick);
+    }
+
+
+    /**
+     * Unschedules every Attack, and moves the wheel to the given tick. Used when restoring a saved state.
+     * @param tick current Battle tick.
+     */
+    public void reset(long tick) {
+        for (int i = 0; i < WHEEL_SIZE; i++) m_slots.get(i).clear();
+        m_tick = tick;
+    }
+
+
+    private Array<Attack> getSlot(long tick) {
+        return m_slots.get((int) (tick & MASK));
+    }
+}
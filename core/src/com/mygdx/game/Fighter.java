@@ -1,7 +1,5 @@
 package com.mygdx.game;
 
-import com.badlogic.gdx.Gdx;
-import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.Animation;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.math.Vector2;
@@ -10,8 +8,9 @@ import com.badlogic.gdx.physics.box2d.BodyDef;
 import com.badlogic.gdx.physics.box2d.BodyDef.BodyType;
 import com.badlogic.gdx.physics.box2d.Fixture;
 import com.badlogic.gdx.physics.box2d.FixtureDef;
+import com.badlogic.gdx.utils.GdxRuntimeException;
 
-import java.io.IOException;
+import java.util.Arrays;
 import java.util.HashMap;
 
 /**
@@ -88,6 +87,26 @@ public class Fighter {
             this.bringFighter = bringFighter;
             this.endLag = endLag;
         }
+
+        /**
+         * Sets every field, used when reading a compiled Fighter.
+         */
+        public AttackConfig(Attack.attackType attackType, Attack.direction direction, float damage, float ultPercent, float force, long lifeTime, Vector2 offset, Vector2 size, Vector2 impulse, boolean isProjectile, boolean isSideDependent, boolean isGroundAttack, boolean bringFighter, float endLag) {
+            this.attackType = attackType;
+            this.direction = direction;
+            this.damage = damage;
+            this.ultPercent = ultPercent;
+            this.force = force;
+            this.lifeTime = lifeTime;
+            this.offset = offset;
+            this.size = size;
+            this.impulse = impulse;
+            this.isProjectile = isProjectile;
+            this.isSideDependent = isSideDependent;
+            this.isGroundAttack = isGroundAttack;
+            this.bringFighter = bringFighter;
+            this.endLag = endLag;
+        }
     }
 
 
@@ -121,6 +140,25 @@ public class Fighter {
         }
     }
 
+    /**
+     * Simulation state of a Fighter, saved and restored for rollback.
+     */
+    public static class State {
+        float x;
+        float y;
+        float angle;
+        float velocityX;
+        float velocityY;
+        float angularVelocity;
+        boolean isAwake;
+        boolean isActive;
+        float health;
+        float ultMeter;
+        float damageDealt;
+        boolean isDead;
+        boolean isTouchingGround;
+    }
+
     public enum Animations {
         Idle("idle", 0),
         Run("run", -1),
@@ -153,6 +191,18 @@ public class Fighter {
         }
     }
 
+    /** Cached, values() clones the array on every call. */
+    private static final int DIRECTION_COUNT = Attack.direction.values().length;
+
+    /** Number of Moves, every attackType, direction and grounded combination. */
+    public static final int MOVE_COUNT = Attack.attackType.values().length * DIRECTION_COUNT * 2;
+
+    /** Animation played by each Move, indexed by getMoveIndex. Null if no Animation exists for the Move. */
+    private static final Animations[] MOVE_ANIMATIONS = buildMoveAnimations();
+
+    /** Marks a Move the Fighter has no AttackConfig for. */
+    private static final int NO_ATTACK = -1;
+
     /** Body Definition used for each Fighter. */
     private final BodyDef BODY_DEF = GDXHelper.generateBodyDef(BodyType.DynamicBody, new Vector2(0, 0));
 
@@ -174,8 +224,12 @@ public class Fighter {
     /** Width of the Fighter, same value fed into the Fixture Def. */
     private final float m_width;
 
+    /** Width and Height, returned by getDimensions. */
+    private final Vector2 m_dimensions;
+
     /** Body of the Fighter generated by the World. */
     private final Body m_body;
+    private final RenderTransform m_renderTransform;
 
     /** Fixture of the Fighter generated by the Body. */
     private final Fixture m_fixture;
@@ -183,8 +237,27 @@ public class Fighter {
     /** Final Array of all Attacks/Specials of the Fighter. */
     private final AttackConfig[] m_attackConfigs;
 
+    /** AttackConfig index of each Move, indexed by getMoveIndex. NO_ATTACK if the Fighter doesn't have the Move. */
+    private final int[] m_attackTable;
+
+    /** EndLag of each AttackConfig in ticks, converted from milliseconds once at load. */
+    private final long[] m_endLagTicks;
+
+    /** Reusable hitboxes for each of the AttackConfigs. */
+    private final HitboxPool m_hitboxes;
+
+    /** Context the Fighter and its Attacks simulate in. */
+    private final SimulationContext m_context;
+
+    /** Frees the Fighter's Attacks once they expire, from the context. */
+    private final ExpiryScheduler m_expiryScheduler;
+
+    /** Shared with other Fighters of the same character, don't modify. */
     private final HashMap<Animations, Animation<TextureRegion>> m_animations;
 
+    /** Cache the Animations were acquired from. Null if none are loaded. */
+    private final AnimationCache m_animationCache;
+
     private PlayerController m_controller;
 
     /** Current health in Percent. */
@@ -193,58 +266,179 @@ public class Fighter {
     /** Current Value of the Ultimate Meter. */
     private float m_ultMeter;
 
+    /** Damage this Fighter's Attacks have landed, in Percent. */
+    private float m_damageDealt;
+
+    /** If the body touched the Ground on the last step, the controller is grounded when this changes. */
+    private boolean m_isTouchingGround;
+
     /** If the Fighter is still in the Battle. */
     public boolean isDead;
     
 
     /**
      * Constructor for the Fighter Class.
+     * @param context Context to create the Fighter's bodies in.
      * @param name 
      * @param runSpeed
      * @param jumpForce
      * @param weight
      */
-    public Fighter(String name, float runSpeed, float jumpForce, float weight, float width, float height, AttackConfig[] attackConfigs) {
+    public Fighter(SimulationContext context, String name, float runSpeed, float jumpForce, float weight, float width, float height, AttackConfig[] attackConfigs) {
+        m_context = context;
+        m_expiryScheduler = context.getExpiryScheduler();
         m_name = name;
         m_jumpForce = jumpForce;
         m_weight = weight;
         m_runSpeed = runSpeed;
         m_height = height;
         m_width = width;
+        m_dimensions = new Vector2(width, height);
         isDead = false;
-        m_body = MyGdxGame.WORLD.createBody(BODY_DEF);
-        m_fixture = m_body.createFixture(GDXHelper.generateFixtureDef(1f, 4f, 0f, width, height,
-                MyGdxGame.entityCategory.Fighter.id, MyGdxGame.entityCategory.Ground.id));
+        m_body = context.createBody(BODY_DEF);
+        FixtureDef fixtureDef = GDXHelper.generateFixtureDef(1f, 4f, 0f, width, height,
+                MyGdxGame.entityCategory.Fighter.id, MyGdxGame.entityCategory.Ground.id);
+        m_fixture = m_body.createFixture(fixtureDef);
+        fixtureDef.shape.dispose(); // Box2D copies the Shape into the Fixture
         m_fixture.setUserData(this); // Collider identifier
+        m_renderTransform = new RenderTransform(m_body);
         m_attackConfigs = attackConfigs;
+        m_attackTable = buildAttackTable(m_name, m_attackConfigs);
+        m_endLagTicks = buildEndLagTicks(m_attackConfigs);
+        m_hitboxes = new HitboxPool(this, m_attackConfigs);
 
         m_animations = null;
+        m_animationCache = null;
         m_body.setGravityScale(0.1f);
+        context.register(this);
     }
 
-    public Fighter(FighterConfig config) {
+    /**
+     * Constructor for the Fighter Class.
+     * @param context Context to create the Fighter's bodies in.
+     * @param config Fighter data, parsed from the Fighters folder.
+     * @param animationCache Cache to share Animations from. If null no Textures are loaded,
+     *                       for headless simulations without a GL context.
+     */
+    public Fighter(SimulationContext context, FighterConfig config, AnimationCache animationCache) {
+        m_context = context;
+        m_expiryScheduler = context.getExpiryScheduler();
         m_name = config.name;
         m_jumpForce = config.jumpForce;
         m_weight = config.weight;
         m_runSpeed = config.runSpeed;
         m_height = config.height;
         m_width = config.width;
+        m_dimensions = new Vector2(m_width, m_height);
         isDead = false;
-        m_body = MyGdxGame.WORLD.createBody(BODY_DEF);
-        m_fixture = m_body.createFixture(GDXHelper.generateFixtureDef(1f, 4f, 0f, m_width, m_height,
-                MyGdxGame.entityCategory.Fighter.id, MyGdxGame.entityCategory.Ground.id));
+        m_body = context.createBody(BODY_DEF);
+        FixtureDef fixtureDef = GDXHelper.generateFixtureDef(1f, 4f, 0f, m_width, m_height,
+                MyGdxGame.entityCategory.Fighter.id, MyGdxGame.entityCategory.Ground.id);
+        m_fixture = m_body.createFixture(fixtureDef);
+        fixtureDef.shape.dispose(); // Box2D copies the Shape into the Fixture
         m_fixture.setUserData(this); // Collider identifier
+        m_renderTransform = new RenderTransform(m_body);
         m_attackConfigs = config.attackConfigs;
+        m_attackTable = buildAttackTable(m_name, m_attackConfigs);
+        m_endLagTicks = buildEndLagTicks(m_attackConfigs);
+        m_hitboxes = new HitboxPool(this, m_attackConfigs);
 
-        m_animations = new HashMap<>();
-        String path = "Animations/"+m_name+"/";
-        for (Animations num : Animations.values()) {
-            try {
-                m_animations.put(num, GDXHelper.generateAnimation(new Texture(Gdx.files.internal(path+num.path+".png")), 1/4f));
-            } catch (Exception e) {}
-        }
+        m_animationCache = animationCache;
+        m_animations = (m_animationCache != null) ? m_animationCache.acquire(m_name) : new HashMap<>();
 
         m_body.setGravityScale(0.1f);
+        context.register(this);
+    }
+
+    /**
+     * Flat index of a Move, from the enum ordinals.
+     * @param grounded If the Fighter is on the Ground.
+     * @return index from 0 to MOVE_COUNT.
+     */
+    public static int getMoveIndex(Attack.attackType attackType, Attack.direction direction, boolean grounded) {
+        return ((attackType.ordinal() * DIRECTION_COUNT + direction.ordinal()) << 1) | (grounded ? 1 : 0);
+    }
+
+
+    /**
+     * @param grounded If the Fighter is on the Ground.
+     * @return Animation played by the Move, null if there is none.
+     */
+    public static Animations getMoveAnimation(Attack.attackType attackType, Attack.direction direction, boolean grounded) {
+        return MOVE_ANIMATIONS[getMoveIndex(attackType, direction, grounded)];
+    }
+
+
+    /**
+     * Maps every Move to its Animation, matched by path.
+     * Basic attacks are ground or air Animations, Ultimates share one Animation for every direction.
+     */
+    private static Animations[] buildMoveAnimations() {
+        Animations[] table = new Animations[MOVE_COUNT];
+        for (Attack.attackType attackType : Attack.attackType.values()) {
+            for (Attack.direction direction : Attack.direction.values()) {
+                for (int grounded = 0; grounded < 2; grounded++) {
+                    String path;
+                    if (attackType == Attack.attackType.Ultimate) path = "ultimate";
+                    else if (attackType == Attack.attackType.Basic) path = (grounded == 1 ? "ground" : "air") + direction.name();
+                    else path = attackType.name().toLowerCase() + direction.name();
+
+                    for (Animations animation : Animations.values()) {
+                        if (animation.path.equals(path)) table[getMoveIndex(attackType, direction, grounded == 1)] = animation;
+                    }
+                }
+            }
+        }
+        return table;
+    }
+
+
+    /**
+     * Maps every Move to the AttackConfig performing it.
+     * Basic and Ultimate attacks are used on the Ground or in the Air depending on isGroundAttack,
+     * Specials can be used anywhere, and Smashes only on the Ground.
+     * @throws GdxRuntimeException If two AttackConfigs are defined for the same Move.
+     */
+    private static int[] buildAttackTable(String name, AttackConfig[] attackConfigs) {
+        int[] table = new int[MOVE_COUNT];
+        Arrays.fill(table, NO_ATTACK);
+
+        for (int i = 0; i < attackConfigs.length; i++) {
+            AttackConfig config = attackConfigs[i];
+            for (int grounded = 0; grounded < 2; grounded++) {
+                boolean onGround = grounded == 1;
+                boolean usable;
+                switch (config.attackType) {
+                    case Special:
+                        usable = true;
+                        break;
+                    case Smash:
+                        usable = onGround;
+                        break;
+                    default:
+                        usable = onGround == config.isGroundAttack;
+                }
+                if (!usable) continue;
+
+                int move = getMoveIndex(config.attackType, config.direction, onGround);
+                if (table[move] != NO_ATTACK) {
+                    throw new GdxRuntimeException(name + " has AttackConfigs " + table[move] + " and " + i + " for the same Move : "
+                            + config.attackType + " " + config.direction + (onGround ? " on the Ground" : " in the Air"));
+                }
+                table[move] = i;
+            }
+        }
+        return table;
+    }
+
+
+    /**
+     * @return EndLag of each AttackConfig, in ticks.
+     */
+    private static long[] buildEndLagTicks(AttackConfig[] attackConfigs) {
+        long[] endLagTicks = new long[attackConfigs.length];
+        for (int i = 0; i < attackConfigs.length; i++) endLagTicks[i] = MyGdxGame.millisToTicks((long) attackConfigs[i].endLag);
+        return endLagTicks;
     }
 
     public String getName() {
@@ -267,6 +461,14 @@ public class Fighter {
         m_ultMeter = value;
     }
 
+    public float getDamageDealt() {
+        return m_damageDealt;
+    }
+
+    public void addDamageDealt(float damage) {
+        m_damageDealt += damage;
+    }
+
     public float getJumpForce() {
         return m_jumpForce;
     }
@@ -287,8 +489,11 @@ public class Fighter {
         return m_fixture;
     }
 
+    /**
+     * @return Width and Height of the Fighter, shared, don't modify.
+     */
     public Vector2 getDimensions() {
-        return new Vector2(m_width, m_height);
+        return m_dimensions;
     }
 
     public void setController(PlayerController controller) {
@@ -299,47 +504,103 @@ public class Fighter {
         return m_controller;
     }
 
+    /**
+     * Grounds the controller as the body starts touching the Ground, and ungrounds it as the body leaves it.
+     * Jumping ungrounds the controller while the body still touches, so it's only set when touching changes.
+     */
+    void setTouchingGround(boolean touching) {
+        if (touching == m_isTouchingGround) return;
+        m_isTouchingGround = touching;
+        if (m_controller != null) m_controller.setGrounded(touching);
+    }
+
     public HashMap<Animations, Animation<TextureRegion>> getAnimations() {
         return m_animations;
     }
 
+    /**
+     * Copies the simulation state into the given State, without allocating.
+     */
+    public void saveState(State state) {
+        Vector2 pos = m_body.getPosition();
+        Vector2 vel = m_body.getLinearVelocity();
+        state.x = pos.x;
+        state.y = pos.y;
+        state.angle = m_body.getAngle();
+        state.velocityX = vel.x;
+        state.velocityY = vel.y;
+        state.angularVelocity = m_body.getAngularVelocity();
+        state.isAwake = m_body.isAwake();
+        state.isActive = m_body.isActive();
+        state.health = m_health;
+        state.ultMeter = m_ultMeter;
+        state.damageDealt = m_damageDealt;
+        state.isDead = isDead;
+        state.isTouchingGround = m_isTouchingGround;
+    }
+
+    /**
+     * Sets the simulation state back to a saved State.
+     * PRECONDITION: the World isn't stepping.
+     */
+    public void restoreState(State state) {
+        // Contacts outlive the teleport, Battle.restoreState has the World look for new ones before the next step.
+        m_body.setActive(state.isActive);
+        m_body.setTransform(state.x, state.y, state.angle);
+        m_body.setLinearVelocity(state.velocityX, state.velocityY);
+        m_body.setAngularVelocity(state.angularVelocity);
+        m_body.setAwake(state.isAwake);
+        m_renderTransform.save();
+        m_health = state.health;
+        m_ultMeter = state.ultMeter;
+        m_damageDealt = state.damageDealt;
+        isDead = state.isDead;
+        m_isTouchingGround = state.isTouchingGround;
+    }
+
+    /**
+     * Releases the Fighter's Animations back to the AnimationCache.
+     */
+    public void dispose() {
+        if (m_animationCache != null) m_animationCache.release(m_name);
+    }
+
+    public HitboxPool getHitboxes() {
+        return m_hitboxes;
+    }
+
+    /**
+     * @return Position before the last World step, for drawing between ticks.
+     */
+    public RenderTransform getRenderTransform() {
+        return m_renderTransform;
+    }
+
+    public SimulationContext getContext() {
+        return m_context;
+    }
+
     /**
      * Performs an Attack for the Fighter.
      *
      * @param direction : Direction given by the PlayerController.
      * @param facingRight : The Direction the Fighter is facing.
-     * @return EndLag of the used Move.
+     * @param tick : Current Battle tick.
+     * @return EndLag of the used Move in ticks, -1 if the Fighter doesn't have it.
      */
-    public float attack(Attack.attackType attackType, Attack.direction direction, boolean onGround, boolean facingRight) {
+    public long attack(Attack.attackType attackType, Attack.direction direction, boolean onGround, boolean facingRight, long tick) {
+        int i = m_attackTable[getMoveIndex(attackType, direction, onGround)];
+        if (i == NO_ATTACK) return -1;
+
+        AttackConfig config = m_attackConfigs[i];
         Vector2 pos = m_body.getPosition();
-        for (AttackConfig config : m_attackConfigs) {
-            if (config.attackType == attackType && (attackType == Attack.attackType.Special || (attackType == Attack.attackType.Basic || attackType == Attack.attackType.Ultimate && onGround == config.isGroundAttack) || (attackType == Attack.attackType.Smash && onGround)) && config.direction == direction) {
-                if (!config.isProjectile)
-                    new Attack(
-                            this,
-                            config.damage, config.ultPercent, config.force,
-                            config.isSideDependent ?
-                                    facingRight ?
-                                            new Vector2(pos.x + config.offset.x, pos.y + config.offset.y) :
-                                            new Vector2(pos.x - config.offset.x, pos.y + config.offset.y)
-                                    : new Vector2(pos.x + config.offset.x, pos.y + config.offset.y),
-                            config.size,
-                            direction,
-                            facingRight);
-                else
-                    new Attack(
-                            this,
-                            config.damage, config.ultPercent, config.force, config.lifeTime, config.bringFighter,
-                            facingRight ?
-                                    new Vector2(pos.x + config.offset.x, pos.y + config.offset.y) :
-                                    new Vector2(pos.x - config.offset.x, pos.y + config.offset.y),
-                            config.impulse,
-                            config.size,
-                            direction,
-                            facingRight);
-                return config.endLag;
-            }
-        }
-        return 0;
+        // Projectiles always mirror their offset, other Attacks only if they're side dependent.
+        boolean mirror = !facingRight && (config.isProjectile || config.isSideDependent);
+        float x = mirror ? pos.x - config.offset.x : pos.x + config.offset.x;
+        float y = pos.y + config.offset.y;
+        Attack attack = m_hitboxes.obtain(i);
+        attack.activate(x, y, facingRight, tick);
+        m_expiryScheduler.schedule(attack);
+        return m_endLagTicks[i];
     }
 }
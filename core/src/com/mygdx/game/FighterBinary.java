@@ -0,0 +1,174 @@
+package com.mygdx.game;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+/**
+ * Fighter Binary Class
+ * Compact, versioned binary form of a FighterConfig, compiled from the Fighter's JSON at build time.
+ * <p>
+ * Layout, big endian:
+ * magic, version, CRC32 of the source JSON, name, jumpForce, runSpeed, weight, width, height, attack count,
+ * then per AttackConfig : attackType, direction, flags, damage, ultPercent, force, lifeTime, endLag,
+ * and the offset, size and impulse Vectors flagged as present.
+ */
+public class FighterBinary {
+
+    /** "FGHT" */
+    public static final int MAGIC = 0x46474854;
+
+    /** Bump whenever the layout changes, outdated binaries are ignored in favor of the JSON. */
+    public static final short VERSION = 2;
+
+    public static final String EXTENSION = "fighter";
+
+    private static final int SIDE_DEPENDENT = 1;
+    private static final int PROJECTILE = 1 << 1;
+    private static final int GROUND_ATTACK = 1 << 2;
+    private static final int BRING_FIGHTER = 1 << 3;
+    private static final int HAS_OFFSET = 1 << 4;
+    private static final int HAS_SIZE = 1 << 5;
+    private static final int HAS_IMPULSE = 1 << 6;
+
+
+    /**
+     * @param jsonFile Fighter JSON file.
+     * @return compiled file next to the JSON file.
+     */
+    public static FileHandle getBinaryFile(FileHandle jsonFile) {
+        return jsonFile.sibling(jsonFile.nameWithoutExtension() + "." + EXTENSION);
+    }
+
+
+    /**
+     * @return CRC32 of the JSON file's bytes, a binary compiled from other bytes is stale.
+     */
+    public static int hashSource(FileHandle jsonFile) {
+        CRC32 crc = new CRC32();
+        crc.update(jsonFile.readBytes());
+        return (int) crc.getValue();
+    }
+
+
+    /**
+     * Writes a FighterConfig in the binary format.
+     * @param sourceHash hashSource of the JSON the config was read from.
+     */
+    public static void write(Fighter.FighterConfig config, int sourceHash, DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeInt(sourceHash);
+        byte[] name = config.name.getBytes(StandardCharsets.UTF_8);
+        out.writeShort(name.length);
+        out.write(name);
+        out.writeFloat(config.jumpForce);
+        out.writeFloat(config.runSpeed);
+        out.writeFloat(config.weight);
+        out.writeFloat(config.width);
+        out.writeFloat(config.height);
+
+        out.writeShort(config.attackConfigs.length);
+        for (Fighter.AttackConfig attack : config.attackConfigs) {
+            int flags = 0;
+            if (attack.isSideDependent) flags |= SIDE_DEPENDENT;
+            if (attack.isProjectile) flags |= PROJECTILE;
+            if (attack.isGroundAttack) flags |= GROUND_ATTACK;
+            if (attack.bringFighter) flags |= BRING_FIGHTER;
+            if (attack.offset != null) flags |= HAS_OFFSET;
+            if (attack.size != null) flags |= HAS_SIZE;
+            if (attack.impulse != null) flags |= HAS_IMPULSE;
+
+            out.writeByte(attack.attackType.ordinal());
+            out.writeByte(attack.direction.ordinal());
+            out.writeByte(flags);
+            out.writeFloat(attack.damage);
+            out.writeFloat(attack.ultPercent);
+            out.writeFloat(attack.force);
+            out.writeLong(attack.lifeTime);
+            out.writeFloat(attack.endLag);
+            if (attack.offset != null) writeVector(attack.offset, out);
+            if (attack.size != null) writeVector(attack.size, out);
+            if (attack.impulse != null) writeVector(attack.impulse, out);
+        }
+    }
+
+
+    /**
+     * Reads a compiled Fighter, memory mapped when the file is on disk.
+     * @param sourceHash hashSource of the Fighter's current JSON.
+     * @return FighterConfig, or null if the file was compiled with another version or from another JSON.
+     */
+    public static Fighter.FighterConfig read(FileHandle file, int sourceHash) {
+        ByteBuffer buffer;
+        try {
+            buffer = file.map();
+        } catch (GdxRuntimeException e) {
+            // Classpath and packaged files can't be mapped.
+            buffer = ByteBuffer.wrap(file.readBytes());
+        }
+        return read(buffer, sourceHash);
+    }
+
+
+    /**
+     * Reads a FighterConfig from the buffer's position.
+     * @param sourceHash hashSource of the Fighter's current JSON.
+     * @return FighterConfig, or null if the buffer was compiled with another version or from another JSON.
+     */
+    public static Fighter.FighterConfig read(ByteBuffer buffer, int sourceHash) {
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        if (buffer.getInt() != MAGIC) throw new GdxRuntimeException("Not a compiled Fighter");
+        if (buffer.getShort() != VERSION) return null;
+        if (buffer.getInt() != sourceHash) return null;
+
+        byte[] nameBytes = new byte[buffer.getShort()];
+        buffer.get(nameBytes);
+        String name = new String(nameBytes, StandardCharsets.UTF_8);
+        float jumpForce = buffer.getFloat();
+        float runSpeed = buffer.getFloat();
+        float weight = buffer.getFloat();
+        float width = buffer.getFloat();
+        float height = buffer.getFloat();
+
+        Attack.attackType[] attackTypes = Attack.attackType.values();
+        Attack.direction[] directions = Attack.direction.values();
+        Fighter.AttackConfig[] attackConfigs = new Fighter.AttackConfig[buffer.getShort()];
+        for (int i = 0; i < attackConfigs.length; i++) {
+            Attack.attackType attackType = attackTypes[buffer.get()];
+            Attack.direction direction = directions[buffer.get()];
+            int flags = buffer.get();
+            float damage = buffer.getFloat();
+            float ultPercent = buffer.getFloat();
+            float force = buffer.getFloat();
+            long lifeTime = buffer.getLong();
+            float endLag = buffer.getFloat();
+            Vector2 offset = (flags & HAS_OFFSET) != 0 ? readVector(buffer) : null;
+            Vector2 size = (flags & HAS_SIZE) != 0 ? readVector(buffer) : null;
+            Vector2 impulse = (flags & HAS_IMPULSE) != 0 ? readVector(buffer) : null;
+
+            attackConfigs[i] = new Fighter.AttackConfig(attackType, direction, damage, ultPercent, force, lifeTime,
+                    offset, size, impulse, (flags & PROJECTILE) != 0, (flags & SIDE_DEPENDENT) != 0,
+                    (flags & GROUND_ATTACK) != 0, (flags & BRING_FIGHTER) != 0, endLag);
+        }
+        return new Fighter.FighterConfig(name, runSpeed, jumpForce, weight, width, height, attackConfigs);
+    }
+
+
+    private static void writeVector(Vector2 vector, DataOutputStream out) throws IOException {
+        out.writeFloat(vector.x);
+        out.writeFloat(vector.y);
+    }
+
+
+    private static Vector2 readVector(ByteBuffer buffer) {
+        return new Vector2(buffer.getFloat(), buffer.getFloat());
+    }
+}
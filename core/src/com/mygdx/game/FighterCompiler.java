@@ -0,0 +1,35 @@
+package com.mygdx.game;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Json;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Fighter Compiler Class
+ * Build step compiling every Fighter JSON in a folder into the FighterBinary format, next to the JSON.
+ * The JSON stays the source, run by the compileFighters task.
+ */
+public class FighterCompiler {
+
+    /**
+     * @param args Fighters folder, defaults to the working directory's Fighters folder.
+     */
+    public static void main(String[] args) throws IOException {
+        FileHandle fightersDir = new FileHandle(new File(args.length > 0 ? args[0] : "Fighters"));
+        if (!fightersDir.isDirectory()) throw new IOException("No Fighters folder at " + fightersDir.path());
+
+        Json json = CharacterSelect.createFighterJson();
+        for (FileHandle jsonFile : fightersDir.list(".json")) {
+            Fighter.FighterConfig config = json.fromJson(Fighter.FighterConfig.class, jsonFile);
+            FileHandle binaryFile = FighterBinary.getBinaryFile(jsonFile);
+
+            try (DataOutputStream out = new DataOutputStream(binaryFile.write(false, 4096))) {
+                FighterBinary.write(config, FighterBinary.hashSource(jsonFile), out);
+            }
+            System.out.println("Compiled " + jsonFile.name() + " -> " + binaryFile.name() + " (" + binaryFile.length() + " bytes)");
+        }
+    }
+}
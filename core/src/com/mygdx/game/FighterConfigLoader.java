@@ -0,0 +1,58 @@
+package com.mygdx.game;
+
+import com.badlogic.gdx.assets.AssetDescriptor;
+import com.badlogic.gdx.assets.AssetLoaderParameters;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.assets.loaders.AsynchronousAssetLoader;
+import com.badlogic.gdx.assets.loaders.FileHandleResolver;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Json;
+
+/**
+ * Fighter Config Loader Class
+ * Loads a Fighter's JSON data through an AssetManager, along with its atlas.
+ * <p>
+ * The compiled Fighter, or its JSON, is read on the AssetManager's loading thread, and the atlas's pages are decoded there too,
+ * leaving only the Texture uploads for the GL thread.
+ */
+public class FighterConfigLoader extends AsynchronousAssetLoader<Fighter.FighterConfig, FighterConfigLoader.FighterConfigParameters> {
+
+    public static class FighterConfigParameters extends AssetLoaderParameters<Fighter.FighterConfig> {}
+
+    private final Json m_json = CharacterSelect.createFighterJson();
+
+    /** Config parsed for the asset being loaded, the AssetManager loads one asset at a time. */
+    private Fighter.FighterConfig m_config;
+
+
+    public FighterConfigLoader(FileHandleResolver resolver) {
+        super(resolver);
+    }
+
+
+    /**
+     * Reads the Fighter, run on the loading thread.
+     * The atlas to depend on is named by the Fighter, so it's only known once the Fighter is read.
+     */
+    @Override
+    public Array<AssetDescriptor> getDependencies(String fileName, FileHandle file, FighterConfigParameters parameter) {
+        m_config = CharacterSelect.loadFighterConfig(m_json, file);
+        Array<AssetDescriptor> dependencies = new Array<>();
+        dependencies.add(new AssetDescriptor<>(AnimationCache.getAtlasPath(m_config.name), TextureAtlas.class));
+        return dependencies;
+    }
+
+
+    @Override
+    public void loadAsync(AssetManager manager, String fileName, FileHandle file, FighterConfigParameters parameter) {}
+
+
+    @Override
+    public Fighter.FighterConfig loadSync(AssetManager manager, String fileName, FileHandle file, FighterConfigParameters parameter) {
+        Fighter.FighterConfig config = m_config;
+        m_config = null;
+        return config;
+    }
+}
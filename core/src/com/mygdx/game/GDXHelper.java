@@ -137,6 +137,17 @@ public class GDXHelper {
 
     /**
      * Generates an Animation object based of given TileSheet.
+     *
+     * @param tileSheet
+     * @return
+     */
+    public static Animation<TextureRegion> generateAnimation(Texture tileSheet, float frameTime) {
+        return generateAnimation(new TextureRegion(tileSheet), frameTime);
+    }
+
+
+    /**
+     * Generates an Animation object based of given TileSheet, such as a region of a TextureAtlas.
      * <p>
      * Code Provided by LibGDX Animations Docs :
      * <a href="https://libgdx.com/wiki/graphics/2d/2d-animation">Docs Link</a>
@@ -144,13 +155,13 @@ public class GDXHelper {
      * @param tileSheet
      * @return
      */
-    public static Animation<TextureRegion> generateAnimation(Texture tileSheet, float frameTime) {
+    public static Animation<TextureRegion> generateAnimation(TextureRegion tileSheet, float frameTime) {
         // Use the split utility method to create a 2D array of TextureRegions. This is
         // possible because this sprite sheet contains frames of equal size and they are
         // all aligned.
-        TextureRegion[][] tmp = TextureRegion.split(tileSheet,
-                tileSheet.getWidth() / ANI_COL,
-                tileSheet.getHeight() / ANI_ROW);
+        TextureRegion[][] tmp = tileSheet.split(
+                tileSheet.getRegionWidth() / ANI_COL,
+                tileSheet.getRegionHeight() / ANI_ROW);
 
         // Place the regions into a 1D array in the correct order, starting from the top
         // left, going across first. The Animation constructor requires a 1D array.
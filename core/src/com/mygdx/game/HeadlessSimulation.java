@@ -0,0 +1,135 @@
+package com.mygdx.game;
+
+import com.badlogic.gdx.utils.Json;
+
+/**
+ * Headless Simulation Class
+ * Runs a Battle tick by tick without a window, GL context, or Textures.
+ * <p>
+ * Ticks are not tied to the Render Loop, so a Battle runs as fast as the CPU allows.
+ * Each simulation has its own SimulationContext, so simulations can run side by side on separate threads.
+ * Requires Gdx.files to be set, to read the Fighter JSON data.
+ */
+public class HeadlessSimulation {
+
+    /**
+     * Creates each player's InputSource once the Fighters exist, for sources such as AIInput that watch them.
+     */
+    public interface InputFactory {
+        /**
+         * @param player Player index.
+         * @param fighters Every Fighter of the Battle.
+         */
+        InputSource create(int player, Fighter[] fighters);
+    }
+
+    private final SimulationContext m_context;
+    private final Battle m_battle;
+    private final Fighter[] m_fighters;
+
+    /** Time taken to run the Battle, in nanoseconds. */
+    private long m_runTime;
+
+
+    /**
+     * Creates a new World and a Battle between the given Fighters.
+     * @param fighterIndexes Fighter index numbers, one per player.
+     * @param config Rules of the Battle.
+     */
+    public HeadlessSimulation(int[] fighterIndexes, BattleConfig config) {
+        this(fighterIndexes, config, PlayerController.ControllerType.None);
+    }
+
+
+    /**
+     * Creates a new World and a Battle between the given Fighters.
+     * @param fighterIndexes Fighter index numbers, one per player.
+     * @param config Rules of the Battle.
+     * @param controllerType ControllerType of every player, None or Remote.
+     */
+    public HeadlessSimulation(int[] fighterIndexes, BattleConfig config, PlayerController.ControllerType controllerType) {
+        this(fighterIndexes, config, createInputs(fighterIndexes.length, controllerType));
+    }
+
+
+    /**
+     * Creates a new World and a Battle between the given Fighters.
+     * @param fighterIndexes Fighter index numbers, one per player.
+     * @param config Rules of the Battle.
+     * @param inputs InputSource of each player, such as an InputReplay's.
+     */
+    public HeadlessSimulation(int[] fighterIndexes, BattleConfig config, InputSource[] inputs) {
+        this(fighterIndexes, config, (player, fighters) -> inputs[player]);
+    }
+
+
+    /**
+     * Creates a new World and a Battle between the given Fighters.
+     * @param fighterIndexes Fighter index numbers, one per player.
+     * @param config Rules of the Battle.
+     * @param inputs Creates the InputSource of each player.
+     */
+    public HeadlessSimulation(int[] fighterIndexes, BattleConfig config, InputFactory inputs) {
+        m_context = new SimulationContext(new TickProfiler(), config.isRollback);
+
+        Json json = CharacterSelect.createFighterJson();
+        m_fighters = new Fighter[fighterIndexes.length];
+        PlayerController[] controllers = new PlayerController[fighterIndexes.length];
+        for (int i = 0; i < fighterIndexes.length; i++) {
+            m_fighters[i] = new Fighter(m_context, CharacterSelect.getFighterConfig(json, fighterIndexes[i]), null);
+        }
+        for (int i = 0; i < fighterIndexes.length; i++) {
+            controllers[i] = new PlayerController(m_fighters[i], inputs.create(i, m_fighters));
+            m_fighters[i].setController(controllers[i]);
+        }
+
+        m_battle = new Battle(m_context, m_fighters, controllers, config, true);
+    }
+
+
+    /**
+     * Ticks the Battle until it finishes.
+     * @param maxTicks Tick limit, for Battles without a Time Limit. -1 means no limit.
+     * @return Number of ticks simulated.
+     */
+    public long run(long maxTicks) {
+        long start = System.nanoTime();
+        while (!m_battle.isFinished && (maxTicks == -1 || m_battle.getTick() < maxTicks)) {
+            m_battle.tick();
+        }
+        m_runTime += System.nanoTime() - start;
+        return m_battle.getTick();
+    }
+
+
+    private static InputSource[] createInputs(int players, PlayerController.ControllerType controllerType) {
+        InputSource[] inputs = new InputSource[players];
+        for (int i = 0; i < players; i++) inputs[i] = InputSource.create(controllerType);
+        return inputs;
+    }
+
+
+    public Battle getBattle() {
+        return m_battle;
+    }
+
+    public Fighter[] getFighters() {
+        return m_fighters;
+    }
+
+    /**
+     * @return Time spent in run(), in nanoseconds.
+     */
+    public long getRunTime() {
+        return m_runTime;
+    }
+
+
+    /**
+     * Disposes the Battle and the World it was simulated in.
+     */
+    public void dispose() {
+        m_battle.dispose();
+        m_context.dispose();
+    }
+}
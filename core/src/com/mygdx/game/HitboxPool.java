@@ -0,0 +1,81 @@
+package com.mygdx.game;
+
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Hitbox Pool Class
+ * Pre-allocates an Attack hitbox per AttackConfig of a Fighter, so Attacks aren't allocated
+ * each time they're used.
+ * <p>
+ * obtain always hands out the first inactive hitbox of an AttackConfig, so which hitbox an Attack uses
+ * only depends on which Attacks are active. Restoring a saved Battle state then restores the hitboxes too.
+ */
+public class HitboxPool {
+
+    private final Fighter m_user;
+    private final Fighter.AttackConfig[] m_configs;
+
+    /** Hitboxes of each AttackConfig, in creation order. */
+    private final Array<Array<Attack>> m_hitboxes;
+
+    /** Every hitbox of the Fighter, in creation order. */
+    private final Array<Attack> m_attacks;
+
+
+    /**
+     * Creates an array of hitboxes for each AttackConfig, holding as many as can be alive at once.
+     * obtain appends a new hitbox to an AttackConfig's array when all of them are active, they never shrink.
+     * @param user Fighter that owns the Attacks.
+     * @param configs the Fighter's AttackConfigs, the arrays share their indexes.
+     */
+    public HitboxPool(Fighter user, Fighter.AttackConfig[] configs) {
+        m_user = user;
+        m_configs = configs;
+        m_hitboxes = new Array<>(configs.length);
+        m_attacks = new Array<>();
+        for (int i = 0; i < configs.length; i++) {
+            m_hitboxes.add(new Array<Attack>(false, getCapacity(configs[i])));
+            for (int j = 0; j < getCapacity(configs[i]); j++) create(i);
+        }
+    }
+
+
+    /**
+     * Number of hitboxes of an AttackConfig that can be alive at once.
+     * A new Attack can start every endLag, and each lives for its lifeTime.
+     */
+    private static int getCapacity(Fighter.AttackConfig config) {
+        long lifeTime = config.isProjectile ? config.lifeTime : Attack.MELEE_LIFETIME;
+        if (config.endLag <= 0) return 1;
+        return (int) (lifeTime / config.endLag) + 1;
+    }
+
+
+    private Attack create(int configIndex) {
+        Attack attack = new Attack(m_user, m_configs[configIndex]);
+        m_hitboxes.get(configIndex).add(attack);
+        m_attacks.add(attack);
+        return attack;
+    }
+
+
+    /**
+     * @param configIndex index of the AttackConfig in the Fighter's AttackConfigs.
+     * @return inactive Attack, to be activated by the caller.
+     */
+    public Attack obtain(int configIndex) {
+        Array<Attack> hitboxes = m_hitboxes.get(configIndex);
+        for (int i = 0; i < hitboxes.size; i++) {
+            if (!hitboxes.get(i).isActive()) return hitboxes.get(i);
+        }
+        return create(configIndex);
+    }
+
+
+    /**
+     * @return Every hitbox of the Fighter, active or not, in creation order. Don't modify.
+     */
+    public Array<Attack> getAttacks() {
+        return m_attacks;
+    }
+}
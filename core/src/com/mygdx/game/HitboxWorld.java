@@ -0,0 +1,160 @@
+package com.mygdx.game;
+
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.FloatArray;
+
+/**
+ * Hitbox World Class
+ * Finds which Attacks hit which Fighters, with axis aligned boxes instead of Box2D sensors.
+ * <p>
+ * Only the Fighters' hurtboxes are kept, as flat arrays of bounds moved to their bodies after each Box2D step.
+ * Each active Attack then tests its own box against them, so spawning and freeing an Attack costs nothing here.
+ * A Battle has a handful of Fighters, so a straight scan beats a grid, and never allocates.
+ * Attacks are tested in their Fighter's HitboxPool order, and hit the first Fighter they overlap in
+ * creation order, so hits resolve the same way on every run.
+ */
+public class HitboxWorld {
+
+    /** Fighters, in creation order. */
+    private final Array<Fighter> m_fighters = new Array<>();
+
+    /** Bounds of each Fighter's hurtbox, at the same index, in meters. */
+    private final FloatArray m_left = new FloatArray();
+    private final FloatArray m_bottom = new FloatArray();
+    private final FloatArray m_right = new FloatArray();
+    private final FloatArray m_top = new FloatArray();
+
+    /** Attacks that land a hit are queued here, to be freed after the step. */
+    private final DestructionQueue m_destructionQueue;
+
+    /** Times the hit tests, as the Contacts phase. */
+    private final TickProfiler m_profiler;
+
+    /** Reused for each hit's knockback. */
+    private final Vector2 m_impulse = new Vector2();
+
+
+    public HitboxWorld(DestructionQueue destructionQueue, TickProfiler profiler) {
+        m_destructionQueue = destructionQueue;
+        m_profiler = profiler;
+    }
+
+
+    /**
+     * Adds a Fighter's hurtbox, the size of its body.
+     */
+    void add(Fighter fighter) {
+        m_fighters.add(fighter);
+        m_left.add(0);
+        m_bottom.add(0);
+        m_right.add(0);
+        m_top.add(0);
+        updateHurtbox(m_fighters.size - 1);
+    }
+
+
+    private void updateHurtbox(int index) {
+        Fighter fighter = m_fighters.get(index);
+        Vector2 pos = fighter.getBody().getPosition();
+        Vector2 size = fighter.getDimensions();
+        m_left.set(index, pos.x - size.x);
+        m_bottom.set(index, pos.y - size.y);
+        m_right.set(index, pos.x + size.x);
+        m_top.set(index, pos.y + size.y);
+    }
+
+
+    /**
+     * Moves the hurtboxes to the Fighters, moves every active Attack by a step, then resolves their hits.
+     * PRECONDITION: the Box2D World has just stepped.
+     */
+    public void step() {
+        long start = m_profiler.begin();
+        for (int i = 0; i < m_fighters.size; i++) updateHurtbox(i);
+
+        for (int i = 0; i < m_fighters.size; i++) {
+            Array<Attack> attacks = m_fighters.get(i).getHitboxes().getAttacks();
+            for (int j = 0; j < attacks.size; j++) {
+                Attack attack = attacks.get(j);
+                if (!attack.isActive()) continue;
+                attack.step(MyGdxGame.TIME_STEP);
+                if (attack.isDisposed()) continue;
+
+                Fighter target = findTarget(attack);
+                if (target != null) hit(attack, target);
+            }
+        }
+        m_profiler.end(TickProfiler.Phase.Contacts, start);
+    }
+
+
+    /**
+     * @return First Fighter in creation order the Attack overlaps, other than its user, null if none.
+     */
+    private Fighter findTarget(Attack attack) {
+        Vector2 pos = attack.getPosition();
+        Vector2 halfSize = attack.getHalfSize();
+        float left = pos.x - halfSize.x;
+        float bottom = pos.y - halfSize.y;
+        float right = pos.x + halfSize.x;
+        float top = pos.y + halfSize.y;
+
+        Fighter user = attack.getInfo().user;
+        for (int i = 0; i < m_fighters.size; i++) {
+            if (left >= m_right.get(i) || right <= m_left.get(i) || bottom >= m_top.get(i) || top <= m_bottom.get(i)) continue;
+            Fighter fighter = m_fighters.get(i);
+            if (fighter == user || fighter.isDead || !fighter.getBody().isActive()) continue;
+            return fighter;
+        }
+        return null;
+    }
+
+
+    /**
+     * Damages and knocks back the target unless it's guarding, the Attack is used up either way.
+     */
+    private void hit(Attack attack, Fighter target) {
+        Fighter user = attack.getInfo().user;
+        if (!target.getController().isGuarding()) {
+            target.setHealth(target.getHealth() + attack.m_damage);
+            user.addDamageDealt(attack.m_damage);
+            user.setUltMeter(user.getUltMeter() + attack.ultPercent);
+
+            // Apply an impulse to the target's body in the calculated direction
+            float impulseMagnitude = attack.m_force + (attack.m_force * (target.getHealth() / 100 / target.getWeight()));
+            Vector2 impulse = m_impulse.set(impulseMagnitude, impulseMagnitude);
+
+            switch (attack.dir) {
+                case Neutral:
+
+                case Side: {
+                    impulse.set(attack.isFacingRight ? impulse.x : -impulse.x, impulse.y / 2);
+                    break;
+                }
+
+                case Up: {
+                    impulse.set(attack.isFacingRight ? impulse.x / 4 : -impulse.x / 4, impulse.y * 1.5f);
+                    break;
+                }
+
+                case Down: {
+                    impulse.set(attack.isFacingRight ? impulse.x / 4 : -impulse.x / 4, -impulse.y * 1.5f);
+                    break;
+                }
+            }
+
+            target.getBody().applyLinearImpulse(impulse, target.getBody().getWorldCenter(), true);
+        }
+        m_destructionQueue.add(attack);
+    }
+
+
+    public void dispose() {
+        m_fighters.clear();
+        m_left.clear();
+        m_bottom.clear();
+        m_right.clear();
+        m_top.clear();
+    }
+}
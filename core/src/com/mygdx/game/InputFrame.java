@@ -0,0 +1,60 @@
+package com.mygdx.game;
+
+/**
+ * Input Frame Class
+ * One tick of a Player's input, packed in an int so frames are immutable and never allocated.
+ * <p>
+ * The low 16 bits are the button flags, then the horizontal and vertical axes as signed bytes.
+ * Axes are quantized on packing, so a frame reads the same live, over the network, and in a replay.
+ */
+public final class InputFrame {
+
+    // Buttons, the actions to perform this tick.
+    public static final int JUMP = 1;
+    public static final int GUARD = 1 << 1;
+    public static final int BASIC = 1 << 2;
+    public static final int SPECIAL = 1 << 3;
+    public static final int SMASH = 1 << 4;
+    public static final int ULTIMATE = 1 << 5;
+
+    /** No buttons and centered axes. */
+    public static final int NEUTRAL = 0;
+
+    private static final int AXIS_STEPS = 127;
+
+
+    private InputFrame() {}
+
+
+    /**
+     * @param buttons Button flags of the actions to perform.
+     * @param axisX Horizontal movement, from -1 to 1, clamped.
+     * @param axisY Vertical direction of Attacks, from -1 to 1, clamped. Up is positive.
+     * @return packed frame.
+     */
+    public static int of(int buttons, float axisX, float axisY) {
+        return (buttons & 0xFFFF) | (quantize(axisX) & 0xFF) << 16 | (quantize(axisY) & 0xFF) << 24;
+    }
+
+
+    public static int buttons(int frame) {
+        return frame & 0xFFFF;
+    }
+
+    public static boolean isPressed(int frame, int button) {
+        return (frame & button) != 0;
+    }
+
+    public static float axisX(int frame) {
+        return (byte) (frame >> 16) / (float) AXIS_STEPS;
+    }
+
+    public static float axisY(int frame) {
+        return (byte) (frame >> 24) / (float) AXIS_STEPS;
+    }
+
+
+    private static int quantize(float axis) {
+        return Math.round(Math.max(-1, Math.min(1, axis)) * AXIS_STEPS);
+    }
+}
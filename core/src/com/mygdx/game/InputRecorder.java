@@ -0,0 +1,143 @@
+package com.mygdx.game;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.IntArray;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Input Recorder Class
+ * Records every Player's input each tick, to be played back by an InputReplay.
+ * <p>
+ * Each tick's InputFrame is stored as runs of ticks with the same frame, so idle stretches take a few bytes.
+ * <p>
+ * Layout, big endian, counts and runs as varints:
+ * magic, version, player count, fighter indexes, stocks, timeLimit, gamemode, ticks, final checksum,
+ * then per player : run count, and per run : length, InputFrame.
+ */
+public class InputRecorder {
+
+    /** "RPLY" */
+    public static final int MAGIC = 0x52504C59;
+
+    /** Bump whenever the layout changes, or the simulation so recordings no longer replay the same. */
+    public static final short VERSION = 6;
+
+    public static final String EXTENSION = "replay";
+
+    private final int[] m_fighterIndexes;
+    private final BattleConfig m_config;
+
+    // Closed runs per player, ticks and InputFrame.
+    private final IntArray[] m_runLengths;
+    private final IntArray[] m_runInputs;
+
+    // Open run per player.
+    private final int[] m_currentLength;
+    private final int[] m_currentInput;
+
+    /** Last tick recorded. */
+    private long m_tick;
+
+
+    /**
+     * @param fighterIndexes Fighter index numbers, one per player.
+     * @param config Rules of the recorded Battle.
+     */
+    public InputRecorder(int[] fighterIndexes, BattleConfig config) {
+        m_fighterIndexes = fighterIndexes.clone();
+        m_config = config;
+        m_runLengths = new IntArray[fighterIndexes.length];
+        m_runInputs = new IntArray[fighterIndexes.length];
+        for (int i = 0; i < fighterIndexes.length; i++) {
+            m_runLengths[i] = new IntArray();
+            m_runInputs[i] = new IntArray();
+        }
+        m_currentLength = new int[fighterIndexes.length];
+        m_currentInput = new int[fighterIndexes.length];
+    }
+
+
+    /**
+     * Records the input each controller used this tick.
+     * Ticks already recorded are ignored, a rolled back Battle doesn't record its resimulation twice.
+     * @param tick Tick just simulated, starting from 1.
+     * @param controllers Controllers of every player.
+     */
+    public void record(long tick, PlayerController[] controllers) {
+        if (tick <= m_tick) return;
+        if (tick != m_tick + 1) throw new GdxRuntimeException("Ticks " + (m_tick + 1) + " to " + (tick - 1) + " were not recorded");
+        m_tick = tick;
+
+        for (int i = 0; i < controllers.length; i++) {
+            int input = controllers[i].getInputFrame();
+            if (m_currentLength[i] > 0 && input != m_currentInput[i]) {
+                m_runLengths[i].add(m_currentLength[i]);
+                m_runInputs[i].add(m_currentInput[i]);
+                m_currentLength[i] = 0;
+            }
+            m_currentInput[i] = input;
+            m_currentLength[i]++;
+        }
+    }
+
+
+    /**
+     * Writes the recording, it can keep recording after.
+     * @param file Replay file, overwritten.
+     * @param checksum BattleState checksum after the last recorded tick, to check replays against.
+     */
+    public void save(FileHandle file, long checksum) {
+        try (DataOutputStream out = new DataOutputStream(file.write(false, 8192))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            writeVarInt(out, m_fighterIndexes.length);
+            for (int index : m_fighterIndexes) writeVarInt(out, index);
+            out.writeInt(m_config.stocks);
+            out.writeFloat(m_config.timeLimit);
+            out.writeByte(m_config.gamemode.ordinal());
+            out.writeLong(m_tick);
+            out.writeLong(checksum);
+
+            for (int i = 0; i < m_fighterIndexes.length; i++) {
+                IntArray lengths = m_runLengths[i];
+                IntArray inputs = m_runInputs[i];
+                boolean open = m_currentLength[i] > 0;
+                writeVarInt(out, lengths.size + (open ? 1 : 0));
+                for (int j = 0; j < lengths.size; j++) {
+                    writeVarInt(out, lengths.get(j));
+                    writeVarInt(out, inputs.get(j));
+                }
+                if (open) {
+                    writeVarInt(out, m_currentLength[i]);
+                    writeVarInt(out, m_currentInput[i]);
+                }
+            }
+        } catch (IOException e) {
+            throw new GdxRuntimeException("Couldn't write replay " + file, e);
+        }
+    }
+
+
+    /**
+     * @return Number of ticks recorded.
+     */
+    public long getTicks() {
+        return m_tick;
+    }
+
+
+    /**
+     * Writes 7 bits per byte, the high bit set while more bytes follow.
+     */
+    static void writeVarInt(OutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+}
@@ -0,0 +1,144 @@
+package com.mygdx.game;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Input Replay Class
+ * Plays back a recording made by an InputRecorder, each Player's InputFrames through an InputSource.
+ * <p>
+ * The Battle is rebuilt from the recorded Fighters and BattleConfig, so a replay reproduces the match exactly.
+ */
+public class InputReplay {
+
+    private final int[] m_fighterIndexes;
+    private final BattleConfig m_config;
+    private final long m_ticks;
+    private final long m_checksum;
+
+    // Runs per player, ticks and InputFrame.
+    private final int[][] m_runLengths;
+    private final int[][] m_runInputs;
+
+
+    private InputReplay(ByteBuffer buffer) {
+        if (buffer.getInt() != InputRecorder.MAGIC) throw new GdxRuntimeException("Not a replay file");
+        short version = buffer.getShort();
+        if (version != InputRecorder.VERSION) throw new GdxRuntimeException("Replay version " + version + " isn't supported");
+
+        int players = readVarInt(buffer);
+        m_fighterIndexes = new int[players];
+        for (int i = 0; i < players; i++) m_fighterIndexes[i] = readVarInt(buffer);
+        m_config = new BattleConfig();
+        m_config.stocks = buffer.getInt();
+        m_config.timeLimit = buffer.getFloat();
+        m_config.gamemode = BattleConfig.GameMode.values()[buffer.get()];
+        m_ticks = buffer.getLong();
+        m_checksum = buffer.getLong();
+
+        m_runLengths = new int[players][];
+        m_runInputs = new int[players][];
+        for (int i = 0; i < players; i++) {
+            int runs = readVarInt(buffer);
+            m_runLengths[i] = new int[runs];
+            m_runInputs[i] = new int[runs];
+            for (int j = 0; j < runs; j++) {
+                m_runLengths[i][j] = readVarInt(buffer);
+                m_runInputs[i][j] = readVarInt(buffer);
+            }
+        }
+    }
+
+
+    /**
+     * @param file Replay file written by InputRecorder.save.
+     */
+    public static InputReplay read(FileHandle file) {
+        return new InputReplay(ByteBuffer.wrap(file.readBytes()));
+    }
+
+
+    /**
+     * @param player Player index.
+     * @return A new source playing back the Player's recorded InputFrames.
+     */
+    public InputSource getSource(int player) {
+        return new Playback(m_runLengths[player], m_runInputs[player]);
+    }
+
+
+    public int[] getFighterIndexes() {
+        return m_fighterIndexes;
+    }
+
+    public BattleConfig getConfig() {
+        return m_config;
+    }
+
+    /**
+     * @return Number of ticks recorded.
+     */
+    public long getTicks() {
+        return m_ticks;
+    }
+
+    /**
+     * @return BattleState checksum after the last recorded tick.
+     */
+    public long getChecksum() {
+        return m_checksum;
+    }
+
+
+    /**
+     * Plays back one Player's runs. Ticks are usually polled in order, going back rewinds.
+     * Past the end of the recording the last frame is held.
+     */
+    private static class Playback implements InputSource {
+
+        private final int[] m_lengths;
+        private final int[] m_frames;
+
+        /** Current run. */
+        private int m_run;
+
+        /** First tick after the current run. */
+        private long m_runEnd;
+
+
+        Playback(int[] lengths, int[] frames) {
+            m_lengths = lengths;
+            m_frames = frames;
+            m_runEnd = 1 + (lengths.length > 0 ? lengths[0] : 0);
+        }
+
+
+        @Override
+        public int poll(long tick) {
+            if (m_lengths.length == 0) return InputFrame.NEUTRAL;
+
+            if (tick < m_runEnd - m_lengths[m_run]) {
+                m_run = 0;
+                m_runEnd = 1 + m_lengths[0];
+            }
+            while (tick >= m_runEnd && m_run < m_lengths.length - 1) {
+                m_run++;
+                m_runEnd += m_lengths[m_run];
+            }
+            return m_frames[m_run];
+        }
+    }
+
+
+    private static int readVarInt(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new GdxRuntimeException("Malformed varint in replay");
+    }
+}
@@ -0,0 +1,39 @@
+package com.mygdx.game;
+
+/**
+ * Input Source Interface
+ * Where a PlayerController's input comes from, sampled once at the start of each tick.
+ * <p>
+ * Local devices, the network, replays and the AI are interchangeable, the PlayerController only reads the frame.
+ */
+public interface InputSource {
+
+    /** Never presses anything, for idle Fighters. */
+    InputSource NONE = tick -> InputFrame.NEUTRAL;
+
+    /**
+     * @param tick The tick about to be simulated.
+     * @return The InputFrame of the tick.
+     */
+    int poll(long tick);
+
+    /**
+     * Called once per rendered frame, before any of the frame's ticks.
+     * For sources whose presses don't last until the next tick.
+     */
+    default void sample() {}
+
+
+    /**
+     * @return A new source for a ControllerType.
+     */
+    static InputSource create(PlayerController.ControllerType type) {
+        switch (type) {
+            case Keyboard: return KeyboardInput.primary();
+            case Keyboard2: return KeyboardInput.secondary();
+            case Controller: return new ControllerInput(0);
+            case Remote: return new RemoteInput();
+            default: return NONE;
+        }
+    }
+}
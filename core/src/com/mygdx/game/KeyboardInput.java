@@ -0,0 +1,98 @@
+package com.mygdx.game;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Input.Keys;
+
+/**
+ * Keyboard Input Class
+ * Samples a keyboard layout. Movement is held, Jump and Attacks trigger on the press.
+ * Keys.UNKNOWN leaves an action unbound.
+ * <p>
+ * Presses only last one rendered frame, so they're latched every frame and used by the next tick,
+ * frames that run no tick don't lose them and frames that run several don't repeat them.
+ */
+public class KeyboardInput implements InputSource {
+
+    private final int m_left;
+    private final int m_right;
+    private final int m_up;
+    private final int m_down;
+    private final int m_jump;
+    private final int m_guard;
+    private final int m_basic;
+    private final int m_special;
+    private final int m_smash;
+    private final int m_ultimate;
+
+    /** Buttons pressed since the last poll. */
+    private int m_pressed = 0;
+
+    public KeyboardInput(int left, int right, int up, int down, int jump, int guard,
+                         int basic, int special, int smash, int ultimate) {
+        m_left = left;
+        m_right = right;
+        m_up = up;
+        m_down = down;
+        m_jump = jump;
+        m_guard = guard;
+        m_basic = basic;
+        m_special = special;
+        m_smash = smash;
+        m_ultimate = ultimate;
+    }
+
+
+    /**
+     * @return WASD to move, Space to jump, O to guard, and J K L I to attack.
+     */
+    public static KeyboardInput primary() {
+        return new KeyboardInput(Keys.A, Keys.D, Keys.W, Keys.S, Keys.SPACE, Keys.O, Keys.J, Keys.K, Keys.L, Keys.I);
+    }
+
+
+    /**
+     * @return Arrow keys to move and Up to jump.
+     */
+    public static KeyboardInput secondary() {
+        return new KeyboardInput(Keys.LEFT, Keys.RIGHT, Keys.UNKNOWN, Keys.UNKNOWN, Keys.UP, Keys.UNKNOWN,
+                Keys.UNKNOWN, Keys.UNKNOWN, Keys.UNKNOWN, Keys.UNKNOWN);
+    }
+
+
+    @Override
+    public void sample() {
+        if (isJustPressed(m_jump)) m_pressed |= InputFrame.JUMP;
+        if (isJustPressed(m_basic)) m_pressed |= InputFrame.BASIC;
+        if (isJustPressed(m_special)) m_pressed |= InputFrame.SPECIAL;
+        if (isJustPressed(m_smash)) m_pressed |= InputFrame.SMASH;
+        if (isJustPressed(m_ultimate)) m_pressed |= InputFrame.ULTIMATE;
+    }
+
+
+    @Override
+    public int poll(long tick) {
+        int buttons = m_pressed;
+        m_pressed = 0;
+        if (isPressed(m_guard)) buttons |= InputFrame.GUARD;
+        return InputFrame.of(buttons, axis(m_left, m_right), axis(m_down, m_up));
+    }
+
+
+    /**
+     * @return -1 or 1 if only one of the keys is held, else 0.
+     */
+    private static float axis(int negative, int positive) {
+        boolean isNegative = isPressed(negative);
+        boolean isPositive = isPressed(positive);
+        if (isNegative == isPositive) return 0;
+        return isNegative ? -1 : 1;
+    }
+
+    private static boolean isPressed(int key) {
+        return key != Keys.UNKNOWN && Gdx.input.isKeyPressed(key);
+    }
+
+    private static boolean isJustPressed(int key) {
+        return key != Keys.UNKNOWN && Gdx.input.isKeyJustPressed(key);
+    }
+}
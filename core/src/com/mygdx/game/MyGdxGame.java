@@ -2,10 +2,16 @@ package com.mygdx.game;
 
 import com.badlogic.gdx.ApplicationAdapter;
 import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Input.Keys;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.assets.loaders.resolvers.InternalFileHandleResolver;
+import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.graphics.Camera;
 import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
-import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
+import com.badlogic.gdx.graphics.profiling.GLProfiler;
+import com.badlogic.gdx.math.Matrix4;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.*;
 import com.badlogic.gdx.scenes.scene2d.Stage;
@@ -21,110 +27,12 @@ import com.mygdx.game.PlayerController.ControllerType;
  */
 public class MyGdxGame extends ApplicationAdapter {
 
-	public static class WorldContactListener implements ContactListener {
-		@Override
-		public void beginContact(Contact contact) {
-			// Grounding Fighters
-			// Fixture A is the Fighter
-			// Fixture B is the Ground
-			if (contact.getFixtureB().getUserData() instanceof MyGdxGame.entityCategory && contact.getFixtureA().getUserData() instanceof Fighter) {
-				MyGdxGame.entityCategory ground = (MyGdxGame.entityCategory) contact.getFixtureB().getUserData();
-				Fighter fighter = (Fighter) contact.getFixtureA().getUserData();
-				if (ground == MyGdxGame.entityCategory.Ground) {
-					fighter.getController().setGrounded(true);
-				}
-			}
-
-			// Attacking Fighters
-			// Fixture A is Fighter contacted with
-			// Fixture B is AttackInfo
-			if (contact.getFixtureA().getUserData() instanceof Fighter && contact.getFixtureB().getUserData() instanceof Attack.AttackInfo) {
-				Attack.AttackInfo attackInfo = (Attack.AttackInfo) contact.getFixtureB().getUserData();
-				Fighter target = (Fighter) contact.getFixtureA().getUserData();
-
-				if (attackInfo.user != target) {
-					if (!target.getController().isGuarding()) {
-						target.setHealth(target.getHealth() + attackInfo.attack.m_damage);
-						attackInfo.user.setUltMeter(attackInfo.user.getUltMeter() + attackInfo.attack.ultPercent);
-
-						// Apply an impulse to the target's body in the calculated direction
-						float impulseMagnitude = attackInfo.attack.m_force + (attackInfo.attack.m_force * (target.getHealth() / 100 / target.getWeight()));
-						Vector2 impulse = new Vector2(impulseMagnitude, impulseMagnitude);
-
-						switch(attackInfo.attack.dir) {
-							case Neutral:
-
-							case Side: {
-								if (attackInfo.attack.isFacingRight) {
-									impulse.set(impulse.x, impulse.y / 2);
-								} else {
-									impulse.set(-impulse.x, impulse.y / 2);
-								}
-								break;
-							}
-
-							case Up: {
-								if (attackInfo.attack.isFacingRight) {
-									impulse.set(impulse.x / 4, impulse.y * 1.5f);
-								} else {
-									impulse.set(-impulse.x / 4, impulse.y * 1.5f);
-								}
-								break;
-							}
-
-							case Down: {
-								if (attackInfo.attack.isFacingRight) {
-									impulse.set(impulse.x / 4, -impulse.y * 1.5f);
-								} else {
-									impulse.set(-impulse.x / 4, -impulse.y * 1.5f);
-								}
-								break;
-							}
-						}
-
-						target.getBody().applyLinearImpulse(impulse, target.getBody().getWorldCenter(), true);
-					}
-					attackInfo.attack.dispose();
-				}
-			}
-		}
-
-		@Override
-		public void endContact(Contact contact) {
-			// Grounding Fighters
-			// Fixture A is the Fighter
-			// Fixture B is the Ground
-			if (contact.getFixtureB().getUserData() instanceof MyGdxGame.entityCategory && contact.getFixtureA().getUserData() instanceof Fighter) {
-				MyGdxGame.entityCategory ground = (MyGdxGame.entityCategory) contact.getFixtureB().getUserData();
-				Fighter fighter = (Fighter) contact.getFixtureA().getUserData();
-				if (ground == MyGdxGame.entityCategory.Ground) {
-					fighter.getController().setGrounded(false);
-				}
-			}
-		}
-
-		@Override
-		public void preSolve(Contact contact, Manifold oldManifold) {
-			// Could potentially be removed, but if it ain't broke don't fix it.
-			// Have Collision Detection, but no Physical Collisions for Attacks
-			if (contact.getFixtureB().getUserData() instanceof Attack.AttackInfo) {
-				contact.setEnabled(false);
-			}
-		}
-
-		@Override
-		public void postSolve(Contact contact, ContactImpulse impulse) {}
-	}
-
-
 	/**
 	 * Entity Categories, for MaskBits and Identification of Fixtures.
 	 */
 	public enum entityCategory {
 		Ground((short) 1),
-		Fighter((short) 2),
-		Attack((short) 3),
-		Destroy((short) 4);
+		Fighter((short) 2);
 
 		public final short id;
 		entityCategory(short id) {
@@ -133,93 +41,210 @@ public class MyGdxGame extends ApplicationAdapter {
 	}
 
 	// Constants
-	private static final float TIME_STEP = 1/60f;
-    private static final int VELOCITY_ITERATIONS = 6;
-    private static final int POSITION_ITERATIONS = 2;
-
-	/** World Object, handles all Physics, needs to be declared first so bodies don't throw an error. */
-    public static World WORLD;
-	public static Camera CAMERA;
+	public static final int TICKS_PER_SECOND = 60;
+	public static final float TIME_STEP = 1f / TICKS_PER_SECOND;
+    public static final int VELOCITY_ITERATIONS = 6;
+    public static final int POSITION_ITERATIONS = 2;
 
 	/** Render vars */
     // private Box2DDebugRenderer m_debugRenderer;
 	private float m_accumulator = 0;
-	private float m_previousTime = 0;
+	private long m_previousTime = 0;
+
+	private Camera m_camera;
 
 	private SpriteBatch m_spriteBatch;
-	private ShapeRenderer m_shapeRenderer;
+
+	/** Loads Fighters and their atlases in the background. */
+	private AssetManager m_assetManager;
+
+	/** Animations shared between Fighters, and kept between Battles. */
+	private AnimationCache m_animationCache;
 
 	private CharacterSelect m_characterSelector;
+
+	/** World the current Battle simulates in, a new one per Battle. */
+	private SimulationContext m_context;
 	private Battle m_battle;
 	private Stage m_battleEndStage;
 
+	/** Where the Battle's inputs are saved when it ends, see ReplayRunner. */
+	private FileHandle m_replayFile;
+
+	/** Times each frame's phases, shared with every Battle's context. F3 shows it, F4 saves it as CSV. */
+	private final TickProfiler m_profiler = new TickProfiler();
+	private BitmapFont m_profilerFont;
+	private final Matrix4 m_screenMatrix = new Matrix4();
+
+	/** Counts GL calls while the profiler is on, to see how many passes a frame takes. */
+	private GLProfiler m_glProfiler;
+	private int m_drawCalls;
+	private int m_textureBindings;
+	private int m_shaderSwitches;
+	private String m_glReport = "";
+
 	@Override
 	public void create () { // Start of the Program
-		WORLD = new World(new Vector2(0f, -1f), true);
-		CAMERA = new OrthographicCamera(GDXHelper.PTM(1280), GDXHelper.PTM(720));
+		m_camera = new OrthographicCamera(GDXHelper.PTM(1280), GDXHelper.PTM(720));
 		// m_debugRenderer = new Box2DDebugRenderer();
 
 		m_spriteBatch = new SpriteBatch();
-		m_shapeRenderer = new ShapeRenderer();
-		m_shapeRenderer.setAutoShapeType(true);
-		WORLD.setContactListener(new WorldContactListener()); // Collision Listener
+		m_glProfiler = new GLProfiler(Gdx.graphics);
+		m_assetManager = new AssetManager();
+		m_assetManager.setLoader(Fighter.FighterConfig.class, new FighterConfigLoader(new InternalFileHandleResolver()));
+		m_animationCache = new AnimationCache(m_assetManager);
 
 		// Should eventually be moved to Render method once properly implemented.
-		m_characterSelector = new CharacterSelect();
+		m_characterSelector = new CharacterSelect(m_assetManager);
 	}
 
 
 	@Override
 	public void render () { // During the Program
+		long frameStart = m_profiler.begin();
 		ScreenUtils.clear(0, 0, 0, 1); // values range from 0-1 instead of 0-255
+		if (Gdx.input.isKeyJustPressed(Keys.F3)) {
+			m_profiler.setEnabled(!m_profiler.isEnabled());
+			if (m_profiler.isEnabled()) m_glProfiler.enable();
+			else m_glProfiler.disable();
+			m_glProfiler.reset();
+		}
+		if (Gdx.input.isKeyJustPressed(Keys.F4)) m_profiler.exportCsv(Gdx.files.local("Profiles/" + System.currentTimeMillis() + ".csv"));
 
 		// Game state Updates/Checks
-		if (m_battle == null && m_characterSelector != null && m_characterSelector.isFinished()) {
-			Fighter[] fighters = m_characterSelector.getFighters();
+		// Highlighted Fighters stream in during Character Select, the Battle starts once they're loaded.
+		if (m_battle == null && m_characterSelector != null && m_characterSelector.updateLoading() && m_characterSelector.isFinished()) {
+			BattleConfig config = new BattleConfig();
+			m_context = new SimulationContext(m_profiler, config.isRollback);
+			Fighter[] fighters = m_characterSelector.getFighters(m_context, m_animationCache);
 			PlayerController[] controllers = m_characterSelector.getControllers(fighters);
-			m_battle = new Battle(fighters, controllers, new BattleConfig());
+			m_battle = new Battle(m_context, fighters, controllers, config);
+			m_battle.setInputRecorder(new InputRecorder(m_characterSelector.getSelectionIndexes(), config));
+			m_replayFile = Gdx.files.local("Replays/" + System.currentTimeMillis() + "." + InputRecorder.EXTENSION);
+			m_characterSelector.unloadFighters();
 		}
 
-		// Physics Step
-		float currentTime = System.nanoTime();
-        physicsStep(currentTime - m_previousTime);
+		// Physics Step, the Battle logic is ticked alongside each World step.
+		long currentTime = System.nanoTime();
+		if (m_previousTime == 0) m_previousTime = currentTime;
+		if (m_battle != null) m_battle.sampleInputs();
+        physicsStep((currentTime - m_previousTime) / 1000000000f);
         m_previousTime = currentTime;
 
 		// Update Environments
-		CAMERA.update();
-		if (m_battle != null && !m_battle.isFinished) m_battle.update();
+		m_camera.update();
 
 		// Draw Environments
-		// m_debugRenderer.render(WORLD, CAMERA.combined); // See Collision Boxes, to be removed
-		m_spriteBatch.setProjectionMatrix(CAMERA.combined); // Matrix for Sprites
-		m_shapeRenderer.setProjectionMatrix(CAMERA.combined); // Matrix for GDXShapes
-		if (m_battle != null && !m_battle.isFinished) m_battle.draw(m_spriteBatch, m_shapeRenderer);
+		// m_debugRenderer.render(m_context.getWorld(), m_camera.combined); // See Collision Boxes, to be removed
+		m_spriteBatch.setProjectionMatrix(m_camera.combined); // Matrix for Sprites
+		if (m_battle != null && !m_battle.isFinished) m_battle.draw(m_spriteBatch, m_accumulator / TIME_STEP);
 
 		if (m_battle != null && m_battle.isFinished && m_battleEndStage == null) {
+			saveReplay();
 			m_battleEndStage = new Stage();
-			Label label = new Label("Battle Ended!\n", new Skin(Gdx.files.internal("FontSkins\\default\\skin\\uiskin.json")));
+			Label label = new Label("Battle Ended!\n", new Skin(Gdx.files.internal("FontSkins/default/skin/uiskin.json")));
 			label.setText(label.getText() + m_battle.getWinner());
-			label.setPosition(CAMERA.viewportWidth * 100 / 2 - label.getWidth(), CAMERA.viewportHeight * 100 / 2 - label.getHeight());
+			label.setPosition(m_camera.viewportWidth * 100 / 2 - label.getWidth(), m_camera.viewportHeight * 100 / 2 - label.getHeight());
 			m_battleEndStage.addActor(label);
 		}
 
 		if (m_battleEndStage != null) {
 			m_battleEndStage.draw();
 		}
+
+		m_profiler.end(TickProfiler.Phase.Frame, frameStart);
+		m_profiler.endFrame();
+		if (m_profiler.isEnabled()) drawProfiler();
+	}
+
+
+	/**
+	 * Draws the profiler's last window and this frame's GL counts in the top left corner, in screen pixels.
+	 * The overlay's own calls are left out of the counts.
+	 */
+	private void drawProfiler() {
+		int drawCalls = m_glProfiler.getDrawCalls();
+		int textureBindings = m_glProfiler.getTextureBindings();
+		int shaderSwitches = m_glProfiler.getShaderSwitches();
+		if (drawCalls != m_drawCalls || textureBindings != m_textureBindings || shaderSwitches != m_shaderSwitches) {
+			m_drawCalls = drawCalls;
+			m_textureBindings = textureBindings;
+			m_shaderSwitches = shaderSwitches;
+			m_glReport = "Draw calls " + drawCalls + ", texture binds " + textureBindings + ", shader switches " + shaderSwitches;
+		}
+
+		if (m_profilerFont == null) m_profilerFont = new BitmapFont();
+		m_screenMatrix.setToOrtho2D(0, 0, Gdx.graphics.getWidth(), Gdx.graphics.getHeight());
+		m_spriteBatch.setProjectionMatrix(m_screenMatrix);
+		m_spriteBatch.begin();
+		m_profilerFont.draw(m_spriteBatch, m_glReport, 10, Gdx.graphics.getHeight() - 10);
+		m_profilerFont.draw(m_spriteBatch, m_profiler.getReport(), 10, Gdx.graphics.getHeight() - 30);
+		m_spriteBatch.end();
+		m_glProfiler.reset();
 	}
 
 	
 	@Override
 	public void dispose () { // End of the Program
 		m_spriteBatch.dispose();
+		if (m_profilerFont != null) m_profilerFont.dispose();
 		// m_debugRenderer.dispose();
-		m_battle.dispose();
+		if (m_battle != null) {
+			if (!m_battle.isFinished) saveReplay();
+			m_battle.dispose();
+			m_context.dispose();
+		}
+		m_animationCache.dispose();
+		m_assetManager.dispose();
 	}
 
 	
 	/**
-	 * 
-	 * @param deltaTime 
+	 * Saves the Battle's inputs so far, with the checksum a replay has to reach.
+	 */
+	private void saveReplay() {
+		InputRecorder recorder = m_battle.getInputRecorder();
+		if (recorder == null || recorder.getTicks() == 0) return;
+		BattleState state = new BattleState(m_battle.getFighters().length);
+		m_battle.saveState(state);
+		recorder.save(m_replayFile, state.checksum());
+		System.out.println("Replay saved to " + m_replayFile.path());
+	}
+
+
+	/**
+	 * Converts a duration to ticks, rounding down.
+	 * @param millis duration in milliseconds
+	 * @return whole ticks that fit in the duration
+	 */
+	public static long millisToTicks(long millis) {
+		return millis * TICKS_PER_SECOND / 1000;
+	}
+
+
+	/**
+	 * Creates the physics World with the game's gravity.
+	 * Each SimulationContext creates its own.
+	 * <p>
+	 * For rollback, warm starting and sleeping are off. Both carry solver state from one step to the next that a
+	 * BattleState can't save, so a restored Battle would step differently from the one it was saved from.
+	 * They stay on otherwise, as they make resting contacts steadier.
+	 * @param isRollback if the Battle's state will be restored, see BattleConfig.isRollback.
+	 * @return new World
+	 */
+	public static World createWorld(boolean isRollback) {
+		World world = new World(new Vector2(0f, -1f), !isRollback);
+		world.setWarmStarting(!isRollback);
+		return world;
+	}
+
+
+	/**
+	 * Advances the simulation by fixed steps of TIME_STEP.
+	 * While a Battle is running each step is one Battle tick, the World is only stepped by the Battle.
+	 * The leftover time stays in the accumulator. The Battle is drawn that fraction of the way from the
+	 * previous tick to the current one, so drawing runs up to a tick behind the simulation.
+	 * @param deltaTime frame time in seconds
 	 */
     private void physicsStep(float deltaTime) {
         // fixed time step
@@ -227,7 +252,7 @@ public class MyGdxGame extends ApplicationAdapter {
         float frameTime = Math.min(deltaTime, 0.25f);
         m_accumulator += frameTime;
         while (m_accumulator >= TIME_STEP) {
-            WORLD.step(TIME_STEP, VELOCITY_ITERATIONS, POSITION_ITERATIONS);
+            if (m_battle != null && !m_battle.isFinished) m_battle.tick();
             m_accumulator -= TIME_STEP;
         }
     }
@@ -1,77 +1,85 @@
 package com.mygdx.game;
 
 import java.util.HashMap;
-import java.util.function.BooleanSupplier;
 
 import com.badlogic.gdx.ai.steer.behaviors.Jump;
 import com.badlogic.gdx.graphics.g2d.Animation;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.physics.box2d.*;
-import org.libsdl.SDL;
-import org.libsdl.SDL_Error;
 
-import com.badlogic.gdx.Gdx;
-import com.badlogic.gdx.Input.Keys;
 import com.badlogic.gdx.math.Vector2;
-
-import uk.co.electronstudio.sdl2gdx.SDL2Controller;
-import uk.co.electronstudio.sdl2gdx.SDL2ControllerManager;
+import com.badlogic.gdx.utils.GdxRuntimeException;
 
 
 public class PlayerController {
 
     /**
-     * Key Binds Class
+     * Simulation state of a PlayerController, saved and restored for rollback.
      */
-    private static class ControlAction {
-        private final BooleanSupplier condition;
-        private final Runnable action;
-    
-        public ControlAction(BooleanSupplier condition, Runnable action) {
-            this.condition = condition;
-            this.action = action;
-        }
-    
-        public void checkAndPerform() {
-            if (condition.getAsBoolean()) {
-                action.run();
-            }
-        }
+    public static class State {
+        boolean isGrounded;
+        boolean hasDoubleJump;
+        long lastJumpTick;
+        boolean isFacingRight;
+        boolean isGuarding;
+        float previousY;
+        long previousTick;
+        long tick;
+        long endLag;
+        long previousAttackTick;
+        float fallSpeed;
+        float guardPercent;
+        long previousGuardTick;
+        Fighter.Animations currentAnimation;
+        float stateTime;
     }
 
 
-    public enum ControllerType {Keyboard, Keyboard2, Controller};
+    /**
+     * Selects the InputSource a PlayerController is created with, see InputSource.create.
+     * None never presses anything, used for idle Fighters in headless simulations.
+     * Remote is driven by setRemoteInput, for network play and rollback.
+     */
+    public enum ControllerType {Keyboard, Keyboard2, Controller, Remote, None};
+
     private static final float MAX_VELOCITY_GROUNDED = 0.4f; // Should become character specific
     private static final float MAX_VELOCITY_AIRBORNE = 0.4f; // Should become character specific
-    private static final long JUMP_DEBOUNCE = 125; // milliseconds
+    private static final long JUMP_DEBOUNCE = MyGdxGame.millisToTicks(125); // ticks
     private static final float AXIS_DEADZONE = 0.2f;
-    private static final long GUARDBREAK_STUNTIME = 125;
+    private static final long GUARDBREAK_STUNTIME = 500; // ticks, the Shield regenerates back from below 0 for as long
     private static final float GUARD_DEGRADE = 0.25f;
     private static final float GUARD_GENERATE = 0.25f;
-    private static final long GUARD_DEBOUNCE = 1000;
+    private static final long GUARD_DEBOUNCE = MyGdxGame.millisToTicks(1000); // ticks
+    /** Fall speed is the height fallen times the milliseconds it took, double jumps are tuned to it. */
+    private static final float FALL_SPEED_SCALE = 1000f / MyGdxGame.TICKS_PER_SECOND;
 
     private final Fighter m_fighter;
     private final HashMap<Fighter.Animations, Animation<TextureRegion>> m_animations;
 
-    private final ControlAction[] m_bindings;
-    private final ControllerType m_controllerType;
-    private SDL2Controller m_controller;
+    /** Sampled once at the start of each tick. */
+    private final InputSource m_input;
+
+    /** InputFrame of this tick, every decision reads from it. */
+    private int m_frame;
 
     private boolean m_isGrounded;
     private boolean m_hasDoubleJump;
-    private long m_lastJump;
+    private long m_lastJumpTick;
     private boolean m_isFacingRight;
     private boolean m_isGuarding;
 
     private float m_previousY;
-    private long m_previousTime;
-    private long m_deltaTime;
+    private long m_previousTick;
+
+    /** Current Battle tick, given each update, every timer counts in ticks. */
+    private long m_tick;
 
-    private float m_endLag;
-    private long m_previousAttackTime;
+    /** Ticks the last Attack locks the Fighter for. */
+    private long m_endLag;
+    private long m_previousAttackTick;
     private float m_fallSpeed;
     private float m_guardPercent;
-    private long m_previousGuardTime;
+    private long m_previousGuardTick;
     private Animation<TextureRegion> m_currentAnimation;
     private Fighter.Animations m_currentAnimationEnum;
     private Fighter.Animations m_newAnimationEnum;
@@ -83,73 +91,51 @@ public class PlayerController {
      * @param controllerType
      */
     public PlayerController(Fighter fighter, ControllerType controllerType) {
+        this(fighter, InputSource.create(controllerType));
+    }
+
+
+    /**
+     * Constructor for the Controller Class.
+     * @param fighter
+     * @param input Where the Player's input comes from.
+     */
+    public PlayerController(Fighter fighter, InputSource input) {
         m_fighter = fighter;
         m_animations = m_fighter.getAnimations();
         m_isGrounded = true;
         m_hasDoubleJump = false;
         m_isFacingRight = false;
         m_previousY = 0;
-        m_deltaTime = 0;
-        m_previousTime = 0;
+        m_previousTick = 0;
         m_endLag = 0;
         m_fallSpeed = 0;
         m_guardPercent = 100;
-        m_controllerType = controllerType;
+        m_input = input;
+        m_frame = InputFrame.NEUTRAL;
         m_stateTime = 0;
         m_currentAnimationEnum = Fighter.Animations.Idle;
         m_currentAnimation = m_animations.get(Fighter.Animations.Idle);
+    }
 
-        // init bindings
-        switch(m_controllerType) {
-            case Keyboard:
-                m_bindings = new ControlAction[] {
-                        new ControlAction(() -> Gdx.input.isKeyPressed(Keys.A) && !Gdx.input.isKeyPressed(Keys.D), () -> moveXAxis(-1)),
-                        new ControlAction(() -> Gdx.input.isKeyPressed(Keys.D) && !Gdx.input.isKeyPressed(Keys.A), () -> moveXAxis(1)),
-                        new ControlAction(() -> Gdx.input.isKeyJustPressed(Keys.SPACE), this::jump),
-                        new ControlAction(() -> Gdx.input.isKeyPressed(Keys.O), this::guard),
-                        new ControlAction(() -> !Gdx.input.isKeyPressed(Keys.O), this::stopGuard),
-                        new ControlAction(() -> Gdx.input.isKeyJustPressed(Keys.J), () -> attack(Attack.attackType.Basic)),
-                        new ControlAction(() -> Gdx.input.isKeyJustPressed(Keys.K), () -> attack(Attack.attackType.Special)),
-                        new ControlAction(() -> Gdx.input.isKeyJustPressed(Keys.L), () -> attack(Attack.attackType.Smash)),
-                        new ControlAction(() -> Gdx.input.isKeyJustPressed(Keys.I), () -> attack(Attack.attackType.Ultimate))
-                };
-                break;
-
-            case Keyboard2:
-                m_bindings = new ControlAction[] {
-                    new ControlAction(() -> Gdx.input.isKeyPressed(Keys.LEFT) && !Gdx.input.isKeyPressed(Keys.RIGHT), () -> moveXAxis(-1)),
-                    new ControlAction(() -> Gdx.input.isKeyPressed(Keys.RIGHT) && !Gdx.input.isKeyPressed(Keys.LEFT), () -> moveXAxis(1)),
-                    new ControlAction(() -> Gdx.input.isKeyJustPressed(Keys.UP), this::jump)
-                };
-                break;
-
-            case Controller:
-                try {
-                    m_controller = new SDL2Controller(new SDL2ControllerManager(), 0);   
-                } catch (SDL_Error e) {
-                    m_controller = null;
-                    m_bindings = new ControlAction[0];
-                    return;
-                }
-
-                m_bindings = new ControlAction[] {
-                        new ControlAction(() -> Math.abs(m_controller.getAxis(SDL.SDL_CONTROLLER_AXIS_LEFTX)) > AXIS_DEADZONE,
-                                () -> moveXAxis(m_controller.getAxis(SDL.SDL_CONTROLLER_AXIS_LEFTX))),
-                        new ControlAction(() -> m_controller.getButton(SDL.SDL_CONTROLLER_BUTTON_A), this::jump),
-                        new ControlAction(() -> m_controller.getButton(SDL.SDL_CONTROLLER_BUTTON_X), () -> attack(Attack.attackType.Basic)),
-                        new ControlAction(() -> m_controller.getButton(SDL.SDL_CONTROLLER_BUTTON_Y), () -> attack(Attack.attackType.Special)),
-                        new ControlAction(() -> m_controller.getButton(SDL.SDL_CONTROLLER_BUTTON_B), () -> attack(Attack.attackType.Smash)),
-                        new ControlAction(() -> m_controller.getButton(SDL.SDL_CONTROLLER_BUTTON_B) && m_controller.getButton(SDL.SDL_CONTROLLER_BUTTON_Y), () -> attack(Attack.attackType.Ultimate)),
-                        new ControlAction(() -> m_controller.getButton(SDL.SDL_CONTROLLER_BUTTON_RIGHTSHOULDER), this::guard),
-                        new ControlAction(() -> !m_controller.getButton(SDL.SDL_CONTROLLER_BUTTON_RIGHTSHOULDER), this::stopGuard),
-                };
-                break;
-
-            default:
-                m_bindings = new ControlAction[0];
-                m_controller = null;
-                break;
-        }
+
+    /**
+     * Sets the input of a Remote Controller, used from the next tick on.
+     * @param frame InputFrame of the actions to perform.
+     */
+    public void setRemoteInput(int frame) {
+        if (!(m_input instanceof RemoteInput)) throw new GdxRuntimeException("Not a Remote PlayerController");
+        ((RemoteInput) m_input).set(frame);
+    }
+
+
+    public InputSource getInputSource() {
+        return m_input;
+    }
+
+    /** @return InputFrame used this tick. */
+    public int getInputFrame() {
+        return m_frame;
     }
 
 
@@ -180,15 +166,15 @@ public class PlayerController {
 
         Body body = m_fighter.getBody();
         Vector2 pos = body.getPosition();
-        if (m_isGrounded && System.currentTimeMillis() - m_lastJump > JUMP_DEBOUNCE) {
+        if (m_isGrounded && m_tick - m_lastJumpTick > JUMP_DEBOUNCE) {
             body.applyLinearImpulse(0, m_fighter.getJumpForce(), pos.x, pos.y, true);
-            m_lastJump = System.currentTimeMillis();
+            m_lastJumpTick = m_tick;
             m_isGrounded = false;
         }
-        else if (!m_isGrounded && m_hasDoubleJump && System.currentTimeMillis() - m_lastJump > JUMP_DEBOUNCE) {
+        else if (!m_isGrounded && m_hasDoubleJump && m_tick - m_lastJumpTick > JUMP_DEBOUNCE) {
             // body.applyLinearImpulse(0, m_fighter.getJumpForce() * (m_isFalling ? 3f : 1.35f), pos.x, pos.y, true);
             body.applyLinearImpulse(0, m_fighter.getJumpForce() * ((m_fallSpeed < 0) ? m_fallSpeed * -1.5f : 1), pos.x, pos.y, true);
-            m_lastJump = System.currentTimeMillis();
+            m_lastJumpTick = m_tick;
             m_hasDoubleJump = false;
         }
         m_newAnimationEnum = Fighter.Animations.Jump;
@@ -196,16 +182,16 @@ public class PlayerController {
 
 
     private void guard() {
-        if (m_guardPercent > 0 && System.currentTimeMillis() > m_previousGuardTime + GUARD_DEBOUNCE) {
+        if (m_guardPercent > 0 && m_tick > m_previousGuardTick + GUARD_DEBOUNCE) {
             m_isGuarding = true;
         }
     }
     private void stopGuard() {
         // Prevent Spam
-        if (System.currentTimeMillis() < m_previousGuardTime + GUARD_DEBOUNCE) return;
+        if (m_tick < m_previousGuardTick + GUARD_DEBOUNCE) return;
 
         m_isGuarding = false;
-        m_previousGuardTime = System.currentTimeMillis();
+        m_previousGuardTick = m_tick;
     }
 
 
@@ -213,34 +199,18 @@ public class PlayerController {
         if (m_isGuarding) return;
 
         // Don't Attack, if still in EndLag.
-        if (System.currentTimeMillis() - m_previousAttackTime <= m_endLag) return;
+        if (m_tick - m_previousAttackTick <= m_endLag) return;
 
         // Ultimate Check
         if (attackType == Attack.attackType.Ultimate && m_fighter.getUltMeter() < 100) return;
         else if (attackType == Attack.attackType.Ultimate) m_fighter.setUltMeter(0);
 
-        boolean left;
-        boolean right;
-        boolean up;
-        boolean down;
-
-        switch(m_controllerType) {
-            case Controller: {
-                left = m_controller.getAxis(SDL.SDL_CONTROLLER_AXIS_LEFTX) < -AXIS_DEADZONE;
-                right = m_controller.getAxis(SDL.SDL_CONTROLLER_AXIS_LEFTX) > AXIS_DEADZONE;
-                up = m_controller.getAxis(SDL.SDL_CONTROLLER_AXIS_LEFTY) > AXIS_DEADZONE;
-                down = m_controller.getAxis(SDL.SDL_CONTROLLER_AXIS_LEFTY) < -AXIS_DEADZONE;
-                break;
-            }
-
-            default: { // Keyboard1 binds
-                left = Gdx.input.isKeyPressed(Keys.A);
-                right = Gdx.input.isKeyPressed(Keys.D);
-                up = Gdx.input.isKeyPressed(Keys.W);
-                down = Gdx.input.isKeyPressed(Keys.S);
-                break;
-            }
-        }
+        float axisX = InputFrame.axisX(m_frame);
+        float axisY = InputFrame.axisY(m_frame);
+        boolean left = axisX < -AXIS_DEADZONE;
+        boolean right = axisX > AXIS_DEADZONE;
+        boolean up = axisY > AXIS_DEADZONE;
+        boolean down = axisY < -AXIS_DEADZONE;
 
         Attack.direction direction = Attack.direction.Neutral;
         if (left || right && !(up || down)) {
@@ -253,55 +223,26 @@ public class PlayerController {
             direction = Attack.direction.Down;
         }
 
-        m_endLag = m_fighter.attack(attackType, direction, m_isGrounded, m_isFacingRight);
-        m_previousAttackTime = System.currentTimeMillis();
+        long endLag = m_fighter.attack(attackType, direction, m_isGrounded, m_isFacingRight, m_tick);
 
         // If no Attack was done then don't play an Animation.
-        if (m_endLag == 0) return;
-
-        String attack = "";
-        if (attackType == Attack.attackType.Basic)
-            attack += (m_isGrounded) ? "ground" : "air";
-
-        else if (attackType == Attack.attackType.Special)
-            attack += "special";
-
-        else if (attackType == Attack.attackType.Smash)
-            attack += "smash";
-
-        else if (attackType == Attack.attackType.Ultimate)
-            attack += "ultimate";
-
-        if (attackType != Attack.attackType.Ultimate)
-            switch(direction) {
-                case Neutral: {
-                    attack += "Neutral";
-                    break;
-                }
-                case Side: {
-                    attack += "Side";
-                    break;
-                }
-                case Up: {
-                    attack += "Up";
-                    break;
-                }
-                case Down: {
-                    attack += "Down";
-                    break;
-                }
-            }
+        if (endLag < 0) return;
 
-        for (Fighter.Animations num : Fighter.Animations.values()) {
-            if (num.path.equals(attack)) {
-                m_newAnimationEnum = num;
-                break;
-            }
-        }
+        m_endLag = endLag;
+        m_previousAttackTick = m_tick;
+
+        Fighter.Animations animation = Fighter.getMoveAnimation(attackType, direction, m_isGrounded);
+        if (animation != null) m_newAnimationEnum = animation;
     }
 
 
-    public void update() {
+    /**
+     * Samples the input and updates the Fighter, run once per Battle tick.
+     * @param tick Current Battle tick.
+     */
+    public void update(long tick) {
+        m_tick = tick;
+        m_frame = m_input.poll(tick);
         m_newAnimationEnum = Fighter.Animations.Idle; // Default Animation, to be overridden by others
 
         // Guarding Check
@@ -310,7 +251,7 @@ public class PlayerController {
             m_newAnimationEnum = Fighter.Animations.Shield;
             // Shield Break
             if (m_guardPercent <= 0) {
-                m_guardPercent = -GUARDBREAK_STUNTIME;
+                m_guardPercent = -GUARDBREAK_STUNTIME * GUARD_GENERATE;
                 m_isGuarding = false;
             }
         }
@@ -326,17 +267,24 @@ public class PlayerController {
         Body body = m_fighter.getBody();
         Vector2 pos = body.getPosition();
 
-        m_deltaTime = System.currentTimeMillis() - m_previousTime;
-        m_fallSpeed = (pos.y - m_previousY) * m_deltaTime;
-        if (System.currentTimeMillis() - m_previousAttackTime <= m_endLag) return;
-        m_stateTime += Gdx.graphics.getDeltaTime(); // Accumulate elapsed animation time
-
-        // Bindings
-        for (ControlAction action : m_bindings) action.checkAndPerform();
+        m_fallSpeed = (pos.y - m_previousY) * (m_tick - m_previousTick) * FALL_SPEED_SCALE;
+        if (m_tick - m_previousAttackTick <= m_endLag) return;
+        m_stateTime += MyGdxGame.TIME_STEP; // Accumulate elapsed animation time
+
+        // Actions
+        float axisX = InputFrame.axisX(m_frame);
+        if (Math.abs(axisX) > AXIS_DEADZONE) moveXAxis(axisX);
+        if (InputFrame.isPressed(m_frame, InputFrame.JUMP)) jump();
+        if (InputFrame.isPressed(m_frame, InputFrame.GUARD)) guard();
+        else stopGuard();
+        if (InputFrame.isPressed(m_frame, InputFrame.BASIC)) attack(Attack.attackType.Basic);
+        if (InputFrame.isPressed(m_frame, InputFrame.SPECIAL)) attack(Attack.attackType.Special);
+        if (InputFrame.isPressed(m_frame, InputFrame.SMASH)) attack(Attack.attackType.Smash);
+        if (InputFrame.isPressed(m_frame, InputFrame.ULTIMATE)) attack(Attack.attackType.Ultimate);
         if (m_isGrounded) m_hasDoubleJump = true;
 
         m_previousY = pos.y;
-        m_previousTime = System.currentTimeMillis();
+        m_previousTick = m_tick;
         setAnimation(m_newAnimationEnum);
     }
 
@@ -369,12 +317,56 @@ public class PlayerController {
         return m_stateTime;
     }
 
+    /**
+     * Copies the simulation state into the given State, without allocating.
+     */
+    public void saveState(State state) {
+        state.isGrounded = m_isGrounded;
+        state.hasDoubleJump = m_hasDoubleJump;
+        state.lastJumpTick = m_lastJumpTick;
+        state.isFacingRight = m_isFacingRight;
+        state.isGuarding = m_isGuarding;
+        state.previousY = m_previousY;
+        state.previousTick = m_previousTick;
+        state.tick = m_tick;
+        state.endLag = m_endLag;
+        state.previousAttackTick = m_previousAttackTick;
+        state.fallSpeed = m_fallSpeed;
+        state.guardPercent = m_guardPercent;
+        state.previousGuardTick = m_previousGuardTick;
+        state.currentAnimation = m_currentAnimationEnum;
+        state.stateTime = m_stateTime;
+    }
+
+    /**
+     * Sets the simulation state back to a saved State.
+     */
+    public void restoreState(State state) {
+        m_isGrounded = state.isGrounded;
+        m_hasDoubleJump = state.hasDoubleJump;
+        m_lastJumpTick = state.lastJumpTick;
+        m_isFacingRight = state.isFacingRight;
+        m_isGuarding = state.isGuarding;
+        m_previousY = state.previousY;
+        m_previousTick = state.previousTick;
+        m_tick = state.tick;
+        m_endLag = state.endLag;
+        m_previousAttackTick = state.previousAttackTick;
+        m_fallSpeed = state.fallSpeed;
+        m_guardPercent = state.guardPercent;
+        m_previousGuardTick = state.previousGuardTick;
+        m_currentAnimationEnum = state.currentAnimation;
+        m_currentAnimation = m_animations.get(m_currentAnimationEnum);
+        m_stateTime = state.stateTime;
+    }
+
     private void setAnimation(Fighter.Animations animation) {
         // Don't change anything if it's already that animation
         if (m_currentAnimationEnum == animation) return;
 
         // Higher Priority animations will continue until they finish.
-        if (m_currentAnimationEnum.priority >= animation.priority && !m_currentAnimation.isAnimationFinished(m_stateTime)) return;
+        // Headless Fighters have no Animations loaded, so there is nothing to wait on.
+        if (m_currentAnimationEnum.priority >= animation.priority && m_currentAnimation != null && !m_currentAnimation.isAnimationFinished(m_stateTime)) return;
 
         m_stateTime = 0;
         m_currentAnimation = m_animations.get(animation);
@@ -0,0 +1,25 @@
+package com.mygdx.game;
+
+/**
+ * Remote Input Class
+ * Holds a frame set from outside the tick, for network play and rollback.
+ * The last frame set is repeated until a new one arrives.
+ */
+public class RemoteInput implements InputSource {
+
+    private int m_frame = InputFrame.NEUTRAL;
+
+
+    /**
+     * @param frame InputFrame used by the following ticks.
+     */
+    public void set(int frame) {
+        m_frame = frame;
+    }
+
+
+    @Override
+    public int poll(long tick) {
+        return m_frame;
+    }
+}
@@ -0,0 +1,63 @@
+package com.mygdx.game;
+
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Body;
+
+/**
+ * Render Transform Class
+ * A body's position before the last World step, to draw it blended between ticks.
+ * <p>
+ * Frames rarely line up with ticks, so drawing the body's position as is judders. Drawing it
+ * the accumulator's fraction of a tick between its previous and current position is smooth at any frame rate.
+ */
+public class RenderTransform {
+
+    /** Box2D body followed, null when following a position. */
+    private final Body m_body;
+    private final Vector2 m_position;
+    private float m_previousX;
+    private float m_previousY;
+
+
+    public RenderTransform(Body body) {
+        m_body = body;
+        m_position = null;
+        save();
+    }
+
+
+    /**
+     * @param position Position kept up to date by its owner, for entities without a Box2D body.
+     */
+    public RenderTransform(Vector2 position) {
+        m_body = null;
+        m_position = position;
+        save();
+    }
+
+
+    private Vector2 getPosition() {
+        return (m_body != null) ? m_body.getPosition() : m_position;
+    }
+
+
+    /**
+     * Saves the body's current position as the previous one.
+     * Called before each World step, and after teleporting the body so it isn't drawn sliding there.
+     */
+    public void save() {
+        Vector2 pos = getPosition();
+        m_previousX = pos.x;
+        m_previousY = pos.y;
+    }
+
+
+    /**
+     * @param alpha Fraction of a tick since the last step, from 0 to 1.
+     * @param out Set to the blended position, and returned.
+     */
+    public Vector2 get(float alpha, Vector2 out) {
+        Vector2 pos = getPosition();
+        return out.set(m_previousX + (pos.x - m_previousX) * alpha, m_previousY + (pos.y - m_previousY) * alpha);
+    }
+}
@@ -0,0 +1,186 @@
+package com.mygdx.game;
+
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.physics.box2d.BodyDef;
+import com.badlogic.gdx.physics.box2d.CircleShape;
+import com.badlogic.gdx.physics.box2d.Contact;
+import com.badlogic.gdx.physics.box2d.Fixture;
+import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Simulation Context Class
+ * Everything one Battle simulates in: its physics World, the HitboxWorld, and the entities living in it.
+ * <p>
+ * Fighters and the Arena create their bodies through the context they're given, and Attacks are tested in its
+ * HitboxWorld, so every Battle is isolated, and several can run in one process, on separate threads.
+ * A context is only used by one thread at a time.
+ */
+public class SimulationContext {
+
+    private static final Vector2 PROBE_POSITION = new Vector2(0, -10000);
+
+    private final World m_world;
+
+    /** Frees Attacks once their lifetime is over. */
+    private final ExpiryScheduler m_expiryScheduler;
+
+    /** Entities to remove, drained after each World step. */
+    private final DestructionQueue m_destructionQueue;
+
+    /** Finds Attack hits, Box2D only handles movement and the Ground. */
+    private final HitboxWorld m_hitboxWorld;
+
+    /** Fighters created in this context. */
+    private final Array<Fighter> m_fighters = new Array<>();
+
+    /** Times the phases of each tick, disabled unless the game turns it on. */
+    private final TickProfiler m_profiler;
+
+    /** Static body far from the Arena, a Fixture is briefly added to it by refreshContacts. */
+    private final Body m_probeBody;
+    private final CircleShape m_probeShape;
+
+    /** Fighters touching the Ground this step, reused. */
+    private final Array<Fighter> m_touchingGround = new Array<>();
+
+
+    /**
+     * Creates a new World, for a Battle that isn't rolled back, with a disabled TickProfiler.
+     */
+    public SimulationContext() {
+        this(new TickProfiler(), false);
+    }
+
+
+    /**
+     * Creates a new World.
+     * @param profiler Profiler the Battle's phases are timed with, shared with the game's render loop.
+     * @param isRollback if the Battle's state will be restored, see BattleConfig.isRollback.
+     */
+    public SimulationContext(TickProfiler profiler, boolean isRollback) {
+        m_world = MyGdxGame.createWorld(isRollback);
+        m_expiryScheduler = new ExpiryScheduler();
+        m_destructionQueue = new DestructionQueue(m_expiryScheduler);
+        m_profiler = profiler;
+        m_hitboxWorld = new HitboxWorld(m_destructionQueue, m_profiler);
+
+        m_probeBody = m_world.createBody(GDXHelper.generateBodyDef(BodyDef.BodyType.StaticBody, PROBE_POSITION));
+        m_probeShape = new CircleShape();
+        m_probeShape.setRadius(0.01f);
+    }
+
+
+    /**
+     * Steps the World by one fixed step, grounds the Fighters, resolves the Attacks' hits,
+     * then removes the entities queued during it.
+     */
+    public void step() {
+        long start = m_profiler.begin();
+        m_world.step(MyGdxGame.TIME_STEP, MyGdxGame.VELOCITY_ITERATIONS, MyGdxGame.POSITION_ITERATIONS);
+        m_profiler.end(TickProfiler.Phase.Step, start);
+
+        start = m_profiler.begin();
+        updateGrounding();
+        m_profiler.end(TickProfiler.Phase.Contacts, start);
+
+        m_hitboxWorld.step();
+
+        start = m_profiler.begin();
+        m_destructionQueue.drain();
+        m_profiler.end(TickProfiler.Phase.Cleanup, start);
+    }
+
+
+    /**
+     * Tells each Fighter if its body touches the Ground, from the contacts the World collided this step.
+     * Reading whether contacts touch, rather than their begin and end callbacks, only depends on where the
+     * bodies are, so it's the same after a restore as in the run that was saved.
+     */
+    private void updateGrounding() {
+        m_touchingGround.clear();
+        Array<Contact> contacts = m_world.getContactList();
+        for (int i = 0; i < contacts.size; i++) {
+            Contact contact = contacts.get(i);
+            if (!contact.isTouching()) continue;
+            Fixture a = contact.getFixtureA();
+            Fixture b = contact.getFixtureB();
+            if (a.getUserData() instanceof Fighter && b.getUserData() == MyGdxGame.entityCategory.Ground) {
+                m_touchingGround.add((Fighter) a.getUserData());
+            }
+            else if (b.getUserData() instanceof Fighter && a.getUserData() == MyGdxGame.entityCategory.Ground) {
+                m_touchingGround.add((Fighter) b.getUserData());
+            }
+        }
+
+        for (int i = 0; i < m_fighters.size; i++) {
+            Fighter fighter = m_fighters.get(i);
+            fighter.setTouchingGround(m_touchingGround.contains(fighter, true));
+        }
+    }
+
+
+    /**
+     * Makes the next step look for contacts of bodies moved or reactivated since the last step, before it collides.
+     * Box2D otherwise only finds them at the end of the next step, so a Fighter put back on the Ground by a restore
+     * would fall through one step without touching it. Creating a Fixture flags the World to look first.
+     * PRECONDITION: the World isn't stepping.
+     */
+    public void refreshContacts() {
+        m_probeBody.destroyFixture(m_probeBody.createFixture(m_probeShape, 0));
+    }
+
+
+    public Body createBody(BodyDef bodyDef) {
+        return m_world.createBody(bodyDef);
+    }
+
+
+    /**
+     * Adds a Fighter to the registry, called by the Fighter once its body exists.
+     */
+    void register(Fighter fighter) {
+        m_fighters.add(fighter);
+        m_hitboxWorld.add(fighter);
+    }
+
+
+    public World getWorld() {
+        return m_world;
+    }
+
+    public ExpiryScheduler getExpiryScheduler() {
+        return m_expiryScheduler;
+    }
+
+    public DestructionQueue getDestructionQueue() {
+        return m_destructionQueue;
+    }
+
+    public HitboxWorld getHitboxWorld() {
+        return m_hitboxWorld;
+    }
+
+    public TickProfiler getProfiler() {
+        return m_profiler;
+    }
+
+    /**
+     * @return Fighters created in this context, in creation order.
+     */
+    public Array<Fighter> getFighters() {
+        return m_fighters;
+    }
+
+
+    /**
+     * Disposes the World and every body in it.
+     */
+    public void dispose() {
+        m_probeShape.dispose();
+        m_hitboxWorld.dispose();
+        m_world.dispose();
+        m_fighters.clear();
+    }
+}
@@ -0,0 +1,222 @@
+package com.mygdx.game;
+
+import com.badlogic.gdx.files.FileHandle;
+
+import java.util.Arrays;
+
+/**
+ * Tick Profiler Class
+ * Times the phases of each frame, and keeps a percentile histogram of each over a rolling window.
+ * <p>
+ * Phases are timed with begin and end, and summed over the frame, so a phase run per Fighter or per
+ * tick counts once per frame. Phases can nest, UI runs inside Draw. Contacts run after each Step.
+ * When disabled begin and end only check a flag, nothing is timed or recorded.
+ * <p>
+ * Not thread safe. The game shares one profiler between its render loop and every Battle's SimulationContext,
+ * so it must only be used from the render thread. Headless contexts each get their own, disabled.
+ */
+public class TickProfiler {
+
+    public enum Phase {
+        /** PlayerController updates, input sampling included. */
+        Input,
+        /** World steps. */
+        Step,
+        /** Grounding Fighters from the World's contacts, and the HitboxWorld's hit tests, after the World step. */
+        Contacts,
+        /** Removing destroyed entities and expired Attacks. */
+        Cleanup,
+        /** Battle.draw, UI included. */
+        Draw,
+        /** Arena.drawUI */
+        UI,
+        /** The whole frame. */
+        Frame
+    }
+
+    private static final Phase[] PHASES = Phase.values();
+
+    /** Frames in a window, the overlay and CSV show whole windows. */
+    public static final int WINDOW_FRAMES = 120;
+
+    private boolean m_enabled;
+
+    /** Time spent in each phase this frame, in nanoseconds. */
+    private final long[] m_frameNanos = new long[PHASES.length];
+    private final LogHistogram[] m_histograms = new LogHistogram[PHASES.length];
+    private int m_frames;
+    private long m_windows;
+
+    /** Summary of the last whole window, rebuilt once per window. */
+    private String m_report = "";
+
+    /** A CSV row per phase of every window since the profiler was enabled. */
+    private final StringBuilder m_csv = new StringBuilder();
+
+
+    public TickProfiler() {
+        for (int i = 0; i < PHASES.length; i++) m_histograms[i] = new LogHistogram();
+    }
+
+
+    /**
+     * @return Start of the phase, 0 when disabled.
+     */
+    public long begin() {
+        return m_enabled ? System.nanoTime() : 0;
+    }
+
+
+    /**
+     * @param start Value begin returned.
+     */
+    public void end(Phase phase, long start) {
+        if (start == 0) return;
+        m_frameNanos[phase.ordinal()] += System.nanoTime() - start;
+    }
+
+
+    /**
+     * Records the frame's phases, and summarises the window once it's full.
+     */
+    public void endFrame() {
+        if (!m_enabled) return;
+        for (int i = 0; i < PHASES.length; i++) {
+            m_histograms[i].record(m_frameNanos[i]);
+            m_frameNanos[i] = 0;
+        }
+        if (++m_frames < WINDOW_FRAMES) return;
+
+        StringBuilder report = new StringBuilder("Phase      p50     p99     max  (us, ").append(WINDOW_FRAMES).append(" frames)");
+        for (int i = 0; i < PHASES.length; i++) {
+            LogHistogram histogram = m_histograms[i];
+            long p50 = histogram.getPercentile(0.5f);
+            long p99 = histogram.getPercentile(0.99f);
+            long max = histogram.getMax();
+            report.append('\n').append(String.format("%-8s %7.1f %7.1f %7.1f", PHASES[i], p50 / 1000f, p99 / 1000f, max / 1000f));
+            m_csv.append(m_windows).append(',').append(PHASES[i]).append(',').append(histogram.getCount()).append(',')
+                    .append(p50 / 1000f).append(',').append(p99 / 1000f).append(',').append(max / 1000f).append(',')
+                    .append(histogram.getMean() / 1000f).append('\n');
+            histogram.reset();
+        }
+        m_report = report.toString();
+        m_frames = 0;
+        m_windows++;
+    }
+
+
+    /**
+     * Starts or stops profiling, a new window starts when enabled.
+     */
+    public void setEnabled(boolean enabled) {
+        if (enabled && !m_enabled) {
+            for (int i = 0; i < PHASES.length; i++) {
+                m_frameNanos[i] = 0;
+                m_histograms[i].reset();
+            }
+            m_frames = 0;
+        }
+        m_enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return m_enabled;
+    }
+
+    /**
+     * @return p50, p99 and max of each phase over the last whole window, empty until one is done.
+     */
+    public String getReport() {
+        return m_report;
+    }
+
+
+    /**
+     * Writes every whole window so far, a row per phase, times in microseconds.
+     */
+    public void exportCsv(FileHandle file) {
+        file.writeString("window,phase,frames,p50,p99,max,mean\n" + m_csv, false, "UTF-8");
+        System.out.println("Profile saved to " + file.path());
+    }
+
+
+    /**
+     * Histogram of durations in log2 buckets, each split in linear sub buckets, like an HdrHistogram.
+     * Values are kept to within 1/SUB_BUCKETS of themselves, in fixed memory, without allocating.
+     */
+    static class LogHistogram {
+
+        private static final int SUB_BUCKET_BITS = 3;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+        private static final int BUCKETS = 64 * SUB_BUCKETS;
+
+        private final long[] m_counts = new long[BUCKETS];
+        private long m_count;
+        private long m_total;
+        private long m_max;
+
+
+        void record(long value) {
+            m_counts[getIndex(value)]++;
+            m_count++;
+            m_total += value;
+            m_max = Math.max(m_max, value);
+        }
+
+
+        private static int getIndex(long value) {
+            if (value < SUB_BUCKETS) return (int) Math.max(value, 0);
+            int exponent = 63 - Long.numberOfLeadingZeros(value);
+            int sub = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+            return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+        }
+
+
+        /**
+         * @return Highest value that falls in the bucket.
+         */
+        private static long getHighestValue(int index) {
+            if (index < SUB_BUCKETS) return index;
+            int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+            int sub = index % SUB_BUCKETS;
+            long lowest = (long) (SUB_BUCKETS + sub) << (exponent - SUB_BUCKET_BITS);
+            return lowest + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+        }
+
+
+        /**
+         * @param percentile From 0 to 1.
+         * @return Value at or below which that fraction of the recorded values are, capped at the max.
+         */
+        long getPercentile(float percentile) {
+            if (m_count == 0) return 0;
+            long target = Math.max(1, (long) Math.ceil(percentile * m_count));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += m_counts[i];
+                if (seen >= target) return Math.min(getHighestValue(i), m_max);
+            }
+            return m_max;
+        }
+
+        long getCount() {
+            return m_count;
+        }
+
+        long getMax() {
+            return m_max;
+        }
+
+        long getMean() {
+            return (m_count == 0) ? 0 : m_total / m_count;
+        }
+
+
+        void reset() {
+            Arrays.fill(m_counts, 0);
+            m_count = 0;
+            m_total = 0;
+            m_max = 0;
+        }
+    }
+}
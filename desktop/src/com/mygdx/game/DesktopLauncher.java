@@ -7,7 +7,7 @@ import com.badlogic.gdx.backends.lwjgl3.Lwjgl3ApplicationConfiguration;
 public class DesktopLauncher {
 	public static void main (String[] arg) {
 		Lwjgl3ApplicationConfiguration config = new Lwjgl3ApplicationConfiguration();
-		config.setForegroundFPS(60);
+		config.setForegroundFPS(0); // Uncapped, rendering is interpolated between the 60 Hz physics ticks
 		config.useVsync(true);
 		config.setTitle("The Fantastical Goobers");
 		config.setWindowedMode(1280, 720); // size for now, probably shouldnt change it
@@ -0,0 +1,82 @@
+package com.mygdx.game;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Fails with a non zero exit code if a steady state headless Battle tick allocates.
+ * <p>
+ * Fighters are Remote, fed scripted InputFrames that move, jump, guard, and attack, so the whole path
+ * from input through PlayerController.update, hitbox pools, hit tests, expiry, and the destruction
+ * queue is exercised. Run by the allocationCheck task, part of check.
+ */
+public class AllocationCheck {
+
+	/** Ticks run before measuring, lets the JIT compile and the Pools and queues grow to size. */
+	private static final long WARMUP_TICKS = 20000;
+
+	private static final long MEASURED_TICKS = 10000;
+
+	public static void main (String[] arg) {
+		HeadlessApplicationConfiguration config = new HeadlessApplicationConfiguration();
+		config.updatesPerSecond = 0; // The check runs inside create()
+		new HeadlessApplication(new ApplicationAdapter() {
+			@Override
+			public void create() {
+				long allocated = measure();
+				if (allocated > 0) {
+					System.out.println("FAILED: " + allocated + " bytes allocated over " + MEASURED_TICKS + " ticks");
+					System.exit(1);
+				}
+				System.out.println("No allocations over " + MEASURED_TICKS + " ticks");
+				Gdx.app.exit();
+			}
+		}, config);
+	}
+
+
+	/**
+	 * @return Bytes allocated by this thread while ticking, minus the cost of measuring.
+	 */
+	private static long measure() {
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		threads.setThreadAllocatedMemoryEnabled(true);
+		long thread = Thread.currentThread().getId();
+
+		// Battle never ends on its own
+		BattleConfig config = new BattleConfig();
+		config.stocks = -1;
+		config.timeLimit = -1;
+		HeadlessSimulation simulation = new HeadlessSimulation(new int[] { 0, 1, 0, 1 }, config, PlayerController.ControllerType.Remote);
+
+		for (long i = 0; i < WARMUP_TICKS; i++) tick(simulation);
+
+		long overheadStart = threads.getThreadAllocatedBytes(thread);
+		long overhead = threads.getThreadAllocatedBytes(thread) - overheadStart;
+
+		long start = threads.getThreadAllocatedBytes(thread);
+		for (long i = 0; i < MEASURED_TICKS; i++) tick(simulation);
+		long allocated = threads.getThreadAllocatedBytes(thread) - start - overhead;
+
+		simulation.dispose();
+		return allocated;
+	}
+
+
+	/**
+	 * Scripted input for the tick, then the tick itself.
+	 */
+	private static void tick(HeadlessSimulation simulation) {
+		Battle battle = simulation.getBattle();
+		PlayerController[] controllers = battle.getControllers();
+		long tick = battle.getTick() + 1;
+		for (int i = 0; i < controllers.length; i++) {
+			controllers[i].setRemoteInput(RollbackLoopback.ScriptedInput.frame(i, tick));
+		}
+		battle.tick();
+	}
+}
@@ -0,0 +1,246 @@
+package com.mygdx.game;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+import com.badlogic.gdx.utils.Json;
+import com.badlogic.gdx.utils.JsonWriter;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Runs a matrix of headless matches across every core, for balance work.
+ * <p>
+ * Every combination of Fighter pairing, BattleConfig and input setup is one match. Matches run in parallel
+ * on a ForkJoinPool, each in its own SimulationContext, and their results are written to CSV or JSON.
+ * <p>
+ * Usage: BatchRunner [matrix.json or -] [results.csv or results.json] [workers]
+ * <p>
+ * Without a matrix every ordered pairing of the Fighters found in Fighters/ plays with the default
+ * BattleConfig, AI against AI. Inputs are "ai", "none", or "replay:file" for a Player of a recorded replay.
+ */
+public class BatchRunner {
+
+	private static final String DEFAULT_OUTPUT = "batch.csv";
+
+	/**
+	 * Matches to run, every pairing with every config and every input setup.
+	 */
+	public static class Matrix {
+		/** Fighter index numbers, one per player. */
+		public int[][] pairings;
+		public BattleConfig[] configs;
+		/** Input setups, each with an input per player: ai, none, or replay:file. */
+		public String[][] inputs;
+		/** Tick limit, for configs without a Time Limit. */
+		public long maxTicks = 10L * 60 * MyGdxGame.TICKS_PER_SECOND;
+
+		public int getMatchCount() {
+			return pairings.length * configs.length * inputs.length;
+		}
+	}
+
+	/**
+	 * Outcome of one match.
+	 */
+	public static class MatchResult {
+		public int match;
+		public int[] fighters;
+		public int config;
+		public int inputs;
+		/** Player with the most stocks left then the least damage taken, -1 for a draw. */
+		public int winner;
+		public long ticks;
+		public float[] damageDealt;
+		public int[] stocksLost;
+		public long simulationNanos;
+	}
+
+
+	public static void main (String[] arg) throws Exception {
+		Matrix matrix = (arg.length > 0 && !arg[0].equals("-")) ? readMatrix(new File(arg[0])) : createDefaultMatrix();
+		File output = new File((arg.length > 1) ? arg[1] : DEFAULT_OUTPUT);
+		int workers = (arg.length > 2) ? Integer.parseInt(arg[2]) : Runtime.getRuntime().availableProcessors();
+
+		HeadlessApplicationConfiguration config = new HeadlessApplicationConfiguration();
+		config.updatesPerSecond = 0; // The batch runs inside create()
+		new HeadlessApplication(new ApplicationAdapter() {
+			@Override
+			public void create() {
+				try {
+					run(matrix, output, Math.max(1, workers));
+				} catch (Exception e) {
+					e.printStackTrace();
+					System.exit(1);
+				}
+				Gdx.app.exit();
+			}
+		}, config);
+	}
+
+
+	/**
+	 * Plays every match of the matrix, then writes the results.
+	 * @param workers Matches played at once.
+	 */
+	public static void run(Matrix matrix, File output, int workers) throws Exception {
+		ConcurrentHashMap<String, InputReplay> replays = new ConcurrentHashMap<>();
+		MatchResult[] results = new MatchResult[matrix.getMatchCount()];
+
+		long start = System.nanoTime();
+		ForkJoinPool pool = new ForkJoinPool(workers);
+		try {
+			pool.submit(() -> IntStream.range(0, results.length).parallel()
+					.forEach(match -> results[match] = runMatch(matrix, match, replays))).get();
+		} finally {
+			pool.shutdown();
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+
+		List<MatchResult> list = Arrays.asList(results);
+		if (output.getName().endsWith(".json")) writeJson(list, output);
+		else writeCsv(list, output);
+
+		System.out.println(results.length + " matches on " + workers + " threads in " + String.format("%.2f", seconds) + "s, "
+				+ String.format("%.1f", results.length / seconds) + " matches/s. Results in " + output.getPath());
+	}
+
+
+	/**
+	 * Plays one match in a new HeadlessSimulation, safe to call from several threads at once.
+	 */
+	private static MatchResult runMatch(Matrix matrix, int match, ConcurrentHashMap<String, InputReplay> replays) {
+		int inputIndex = match % matrix.inputs.length;
+		int configIndex = match / matrix.inputs.length % matrix.configs.length;
+		int pairingIndex = match / matrix.inputs.length / matrix.configs.length;
+		int[] fighterIndexes = matrix.pairings[pairingIndex];
+		BattleConfig config = matrix.configs[configIndex];
+		String[] inputs = matrix.inputs[inputIndex];
+
+		HeadlessSimulation simulation = new HeadlessSimulation(fighterIndexes, config,
+				(player, fighters) -> createInput(inputs[player], player, fighters, replays));
+		simulation.run(matrix.maxTicks);
+
+		Battle battle = simulation.getBattle();
+		Fighter[] fighters = simulation.getFighters();
+		int[] stocks = battle.getStocks();
+		MatchResult result = new MatchResult();
+		result.match = match;
+		result.fighters = fighterIndexes;
+		result.config = configIndex;
+		result.inputs = inputIndex;
+		result.winner = getWinner(fighters, stocks);
+		result.ticks = battle.getTick();
+		result.damageDealt = new float[fighters.length];
+		result.stocksLost = new int[fighters.length];
+		for (int i = 0; i < fighters.length; i++) {
+			result.damageDealt[i] = fighters[i].getDamageDealt();
+			result.stocksLost[i] = (config.stocks == -1) ? 0 : config.stocks - stocks[i];
+		}
+		result.simulationNanos = simulation.getRunTime();
+		simulation.dispose();
+		return result;
+	}
+
+
+	private static InputSource createInput(String spec, int player, Fighter[] fighters, ConcurrentHashMap<String, InputReplay> replays) {
+		if (spec.equals("ai")) return new AIInput(fighters[player], fighters);
+		if (spec.equals("none")) return InputSource.NONE;
+		if (spec.startsWith("replay:")) {
+			String path = spec.substring("replay:".length());
+			return replays.computeIfAbsent(path, key -> InputReplay.read(Gdx.files.absolute(key))).getSource(player);
+		}
+		throw new IllegalArgumentException("Unknown input " + spec);
+	}
+
+
+	/**
+	 * @return Player with the most stocks left then the least damage taken, -1 for a draw.
+	 */
+	private static int getWinner(Fighter[] fighters, int[] stocks) {
+		int winner = -1;
+		boolean draw = false;
+		for (int i = 0; i < fighters.length; i++) {
+			if (winner == -1) {
+				winner = i;
+				continue;
+			}
+			int compare = (stocks[i] != stocks[winner]) ? Integer.compare(stocks[i], stocks[winner])
+					: Float.compare(fighters[winner].getHealth(), fighters[i].getHealth());
+			if (compare > 0) {
+				winner = i;
+				draw = false;
+			}
+			else if (compare == 0) draw = true;
+		}
+		return draw ? -1 : winner;
+	}
+
+
+	private static Matrix createDefaultMatrix() {
+		int fighterCount = 0;
+		while (new File(CharacterSelect.getFighterPath(fighterCount)).exists()) fighterCount++;
+		if (fighterCount == 0) throw new IllegalStateException("No Fighters found, run from the assets folder");
+
+		Matrix matrix = new Matrix();
+		matrix.pairings = new int[fighterCount * fighterCount][];
+		for (int i = 0; i < fighterCount; i++) {
+			for (int j = 0; j < fighterCount; j++) matrix.pairings[i * fighterCount + j] = new int[] { i, j };
+		}
+		matrix.configs = new BattleConfig[] { new BattleConfig() };
+		matrix.inputs = new String[][] { { "ai", "ai" } };
+		return matrix;
+	}
+
+
+	private static Matrix readMatrix(File file) throws IOException {
+		try (FileReader reader = new FileReader(file)) {
+			return createJson().fromJson(Matrix.class, reader);
+		}
+	}
+
+
+	private static Json createJson() {
+		Json json = new Json(JsonWriter.OutputType.json);
+		json.setUsePrototypes(false);
+		return json;
+	}
+
+
+	private static void writeCsv(List<MatchResult> results, File file) throws IOException {
+		try (PrintWriter writer = new PrintWriter(file, "UTF-8")) {
+			writer.println("match,fighters,config,inputs,winner,ticks,seconds,damageDealt,stocksLost,simulationMillis");
+			for (MatchResult result : results) {
+				StringBuilder fighters = new StringBuilder();
+				StringBuilder damage = new StringBuilder();
+				StringBuilder stocks = new StringBuilder();
+				for (int i = 0; i < result.fighters.length; i++) {
+					String separator = (i == 0) ? "" : ";";
+					fighters.append(separator).append(result.fighters[i]);
+					damage.append(separator).append(result.damageDealt[i]);
+					stocks.append(separator).append(result.stocksLost[i]);
+				}
+				writer.println(result.match + "," + fighters + "," + result.config + "," + result.inputs + "," + result.winner + ","
+						+ result.ticks + "," + result.ticks / (float) MyGdxGame.TICKS_PER_SECOND + "," + damage + "," + stocks + ","
+						+ result.simulationNanos / 1e6);
+			}
+		}
+	}
+
+
+	private static void writeJson(List<MatchResult> results, File file) throws IOException {
+		try (PrintWriter writer = new PrintWriter(file, "UTF-8")) {
+			Json json = createJson();
+			writer.print(json.prettyPrint(json.toJson(results.toArray(new MatchResult[0]), MatchResult[].class)));
+		}
+	}
+}
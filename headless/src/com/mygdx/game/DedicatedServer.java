@@ -0,0 +1,273 @@
+package com.mygdx.game;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.DatagramChannel;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Authoritative server hosting many 1v1 matches, ticked at a fixed 60 Hz.
+ * <p>
+ * One scheduler thread paces the ticks and receives every client's UDP packets, then the matches are
+ * ticked by worker threads, each owning a shard of them, and each sends its state to its clients.
+ * A tick that takes longer than the tick period is an overrun, a match whose tick takes longer than
+ * its CPU budget is reported.
+ * <p>
+ * Packets are little endian. Clients send JOIN (type, match, player) then INPUT (type, match, player,
+ * tick, InputFrame) each tick. The server sends STATE (type, match, BattleSnapshot) every tick.
+ * <p>
+ * Usage: DedicatedServer [port] [matches] [loopback seconds] [budget in microseconds]
+ * <p>
+ * With loopback seconds, local clients play every match for that long, then the server reports and exits.
+ */
+public class DedicatedServer {
+
+	// Packet types
+	public static final byte JOIN = 1;
+	public static final byte INPUT = 2;
+	public static final byte STATE = 3;
+
+	public static final int JOIN_SIZE = 6;
+	public static final int INPUT_SIZE = 18;
+	public static final int STATE_HEADER_SIZE = 5;
+
+	public static final int DEFAULT_PORT = 7777;
+	private static final int DEFAULT_MATCHES = 100;
+	private static final long DEFAULT_BUDGET_NANOS = 1000000;
+
+	public static final long TICK_NANOS = 1000000000L / MyGdxGame.TICKS_PER_SECOND;
+
+	private static final int[] FIGHTERS = { 0, 1 };
+
+	/** Largest packet a client sends. */
+	private static final int RECEIVE_SIZE = 64;
+
+	private final DatagramChannel m_channel;
+	private final ServerMatch[] m_matches;
+	private final ByteBuffer m_receive = ByteBuffer.allocateDirect(RECEIVE_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+	// Workers tick their shard between the two barrier trips of each tick.
+	private final Thread[] m_workers;
+	private final CyclicBarrier m_tickStart;
+	private final CyclicBarrier m_tickEnd;
+	private volatile boolean m_running;
+
+	private long m_ticks;
+	private long m_overruns;
+	private long m_maxTickNanos;
+
+
+	public static void main (String[] arg) {
+		int port = (arg.length > 0) ? Integer.parseInt(arg[0]) : DEFAULT_PORT;
+		int matches = (arg.length > 1) ? Integer.parseInt(arg[1]) : DEFAULT_MATCHES;
+		float loopbackSeconds = (arg.length > 2) ? Float.parseFloat(arg[2]) : 0;
+		long budgetNanos = (arg.length > 3) ? Long.parseLong(arg[3]) * 1000 : DEFAULT_BUDGET_NANOS;
+
+		HeadlessApplicationConfiguration config = new HeadlessApplicationConfiguration();
+		config.updatesPerSecond = 0; // The server runs inside create()
+		new HeadlessApplication(new ApplicationAdapter() {
+			@Override
+			public void create() {
+				try {
+					DedicatedServer server = new DedicatedServer(port, matches, budgetNanos);
+					LoopbackClients clients = null;
+					if (loopbackSeconds > 0) {
+						clients = new LoopbackClients(new InetSocketAddress("127.0.0.1", port), matches, FIGHTERS.length);
+						clients.start();
+					}
+
+					System.out.println("Hosting " + matches + " matches on port " + port);
+					long ticks = (loopbackSeconds > 0) ? (long) (loopbackSeconds * MyGdxGame.TICKS_PER_SECOND) : -1;
+					server.run(ticks);
+
+					boolean passed = server.report();
+					if (clients != null) passed &= clients.stopAndReport(server.getTicks());
+					server.dispose();
+					if (!passed) System.exit(1);
+				} catch (IOException e) {
+					e.printStackTrace();
+					System.exit(1);
+				}
+				Gdx.app.exit();
+			}
+		}, config);
+	}
+
+
+	/**
+	 * @param port UDP port clients send to.
+	 * @param matches 1v1 matches to host, ids from 0.
+	 * @param budgetNanos CPU time each match's tick may take.
+	 */
+	public DedicatedServer(int port, int matches, long budgetNanos) throws IOException {
+		m_channel = DatagramChannel.open();
+		m_channel.bind(new InetSocketAddress(port));
+		m_channel.configureBlocking(false);
+
+		// Clients reconcile with the STATE snapshots, so matches step as restorable Worlds.
+		BattleConfig config = new BattleConfig();
+		config.isRollback = true;
+		m_matches = new ServerMatch[matches];
+		for (int i = 0; i < matches; i++) m_matches[i] = new ServerMatch(i, FIGHTERS, config, budgetNanos);
+
+		int workers = Math.max(1, Math.min(matches, Runtime.getRuntime().availableProcessors() - 1));
+		m_tickStart = new CyclicBarrier(workers + 1);
+		m_tickEnd = new CyclicBarrier(workers + 1);
+		m_workers = new Thread[workers];
+		for (int i = 0; i < workers; i++) {
+			int shard = i;
+			m_workers[i] = new Thread(() -> runWorker(shard), "ServerWorker-" + i);
+			m_workers[i].setDaemon(true);
+		}
+	}
+
+
+	/**
+	 * Ticks every match at 60 Hz on the calling thread, the scheduler.
+	 * @param ticks Ticks to run, -1 to run until stop is called.
+	 */
+	public void run(long ticks) throws IOException {
+		m_running = true;
+		for (Thread worker : m_workers) worker.start();
+
+		long next = System.nanoTime();
+		while (m_running && (ticks == -1 || m_ticks < ticks)) {
+			long start = System.nanoTime();
+			receive();
+			awaitBarrier(m_tickStart);
+			awaitBarrier(m_tickEnd);
+			m_ticks++;
+
+			long nanos = System.nanoTime() - start;
+			m_maxTickNanos = Math.max(m_maxTickNanos, nanos);
+			if (nanos > TICK_NANOS) {
+				m_overruns++;
+				if (m_overruns == 1 || m_overruns % 100 == 0) {
+					System.out.println("Tick " + m_ticks + " overran: " + nanos / 1000 + "us, " + m_overruns + " overruns");
+				}
+			}
+
+			// Fixed rate, late ticks run straight away to catch up, but never more than a tick behind.
+			next += TICK_NANOS;
+			long now = System.nanoTime();
+			if (next < now - TICK_NANOS) next = now;
+			while ((now = System.nanoTime()) < next) LockSupport.parkNanos(next - now);
+		}
+
+		m_running = false;
+		m_tickStart.reset(); // Releases the workers
+	}
+
+
+	public void stop() {
+		m_running = false;
+	}
+
+
+	private void runWorker(int shard) {
+		while (true) {
+			if (!awaitBarrier(m_tickStart) || !m_running) return;
+			for (int i = shard; i < m_matches.length; i += m_workers.length) m_matches[i].tick(m_channel);
+			if (!awaitBarrier(m_tickEnd)) return;
+		}
+	}
+
+
+	/**
+	 * @return False if the barrier was reset, the server is stopping.
+	 */
+	private static boolean awaitBarrier(CyclicBarrier barrier) {
+		try {
+			barrier.await();
+			return true;
+		} catch (InterruptedException | BrokenBarrierException e) {
+			return false;
+		}
+	}
+
+
+	/**
+	 * Applies every packet that arrived since the last tick.
+	 */
+	private void receive() throws IOException {
+		SocketAddress client;
+		while ((client = m_channel.receive(m_receive)) != null) {
+			m_receive.flip();
+			handlePacket(client, m_receive);
+			m_receive.clear();
+		}
+	}
+
+
+	private void handlePacket(SocketAddress client, ByteBuffer packet) {
+		if (packet.remaining() < JOIN_SIZE) return;
+		byte type = packet.get();
+		int match = packet.getInt();
+		int player = packet.get();
+		if (match < 0 || match >= m_matches.length || player < 0 || player >= m_matches[match].getPlayerCount()) return;
+
+		if (type == JOIN) {
+			m_matches[match].join(player, client);
+		}
+		else if (type == INPUT && packet.remaining() >= INPUT_SIZE - JOIN_SIZE) {
+			long tick = packet.getLong();
+			int frame = packet.getInt();
+			m_matches[match].receiveInput(player, client, tick, frame);
+		}
+	}
+
+
+	/**
+	 * Prints the tick and per match CPU statistics.
+	 * @return If no tick overran.
+	 */
+	public boolean report() {
+		long totalNanos = 0;
+		long maxMatchNanos = 0;
+		long overBudgetTicks = 0;
+		int overBudgetMatches = 0;
+		for (ServerMatch match : m_matches) {
+			totalNanos += match.getTickNanos();
+			maxMatchNanos = Math.max(maxMatchNanos, match.getMaxTickNanos());
+			overBudgetTicks += match.getOverBudgetTicks();
+			if (match.getOverBudgetTicks() > 0) overBudgetMatches++;
+		}
+		long matchTicks = Math.max(1, m_ticks * m_matches.length);
+		System.out.println(m_ticks + " ticks of " + m_matches.length + " matches on " + m_workers.length + " workers. "
+				+ m_overruns + " overruns, longest tick " + m_maxTickNanos / 1000 + "us of " + TICK_NANOS / 1000 + "us");
+		System.out.println("Match ticks: " + totalNanos / matchTicks / 1000.0 + "us average, " + maxMatchNanos / 1000 + "us max. "
+				+ overBudgetMatches + " matches went over budget on " + overBudgetTicks + " ticks");
+		if (m_overruns > 0) System.out.println("FAILED: ticks overran, the box can't carry " + m_matches.length + " matches");
+		return m_overruns == 0;
+	}
+
+
+	public long getTicks() {
+		return m_ticks;
+	}
+
+	public ServerMatch[] getMatches() {
+		return m_matches;
+	}
+
+
+	public void dispose() {
+		for (Thread worker : m_workers) worker.interrupt();
+		for (ServerMatch match : m_matches) match.dispose();
+		try {
+			m_channel.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+}
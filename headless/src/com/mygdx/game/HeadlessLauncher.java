@@ -0,0 +1,47 @@
+package com.mygdx.game;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+
+/**
+ * Runs Battles without a window, as fast as the CPU allows.
+ * <p>
+ * Usage: HeadlessLauncher [matches] [fighter index]...
+ */
+public class HeadlessLauncher {
+
+	/** Tick limit per match, so Battles without a Time Limit still end. */
+	private static final long MAX_TICKS = 60L * 60 * MyGdxGame.TICKS_PER_SECOND;
+
+	public static void main (String[] arg) {
+		int matches = (arg.length > 0) ? Integer.parseInt(arg[0]) : 1;
+		int[] fighters = new int[Math.max(arg.length - 1, 2)];
+		for (int i = 0; i < fighters.length; i++) {
+			fighters[i] = (i + 1 < arg.length) ? Integer.parseInt(arg[i + 1]) : i;
+		}
+
+		HeadlessApplicationConfiguration config = new HeadlessApplicationConfiguration();
+		config.updatesPerSecond = 0; // Don't sleep between frames, the matches run inside create()
+		new HeadlessApplication(new ApplicationAdapter() {
+			@Override
+			public void create() {
+				long totalTicks = 0;
+				long totalTime = 0;
+				for (int i = 0; i < matches; i++) {
+					HeadlessSimulation simulation = new HeadlessSimulation(fighters, new BattleConfig());
+					long ticks = simulation.run(MAX_TICKS);
+					System.out.println("Match " + i + ": " + simulation.getBattle().getWinner() + " (" + ticks + " ticks)");
+					totalTicks += ticks;
+					totalTime += simulation.getRunTime();
+					simulation.dispose();
+				}
+				double seconds = totalTime / 1000000000.0;
+				System.out.println(matches + " matches, " + totalTicks + " ticks in " + seconds + "s ("
+						+ (long) (totalTicks / seconds) + " ticks/s)");
+				Gdx.app.exit();
+			}
+		}, config);
+	}
+}
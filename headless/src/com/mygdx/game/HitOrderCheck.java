@@ -0,0 +1,103 @@
+package com.mygdx.game;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Fails with a non zero exit code if an Attack overlapping several Fighters doesn't hit only the first of them.
+ * <p>
+ * Every Fighter is stacked on the same spot, then each in turn activates a hitbox on top of them all.
+ * The HitboxWorld has to damage only the first Fighter in creation order that isn't the user,
+ * and the rest not at all. Run by the hitOrderCheck task, part of check.
+ */
+public class HitOrderCheck {
+
+	/** Ticks run before stacking the Fighters, lets them land. */
+	private static final long SETTLE_TICKS = 120;
+
+	public static void main (String[] arg) {
+		HeadlessApplicationConfiguration config = new HeadlessApplicationConfiguration();
+		config.updatesPerSecond = 0; // The check runs inside create()
+		new HeadlessApplication(new ApplicationAdapter() {
+			@Override
+			public void create() {
+				int failures = check();
+				if (failures > 0) {
+					System.out.println("FAILED: " + failures + " Attacks hit the wrong Fighters");
+					System.exit(1);
+				}
+				System.out.println("Every Attack hit the first Fighter it overlapped");
+				Gdx.app.exit();
+			}
+		}, config);
+	}
+
+
+	/**
+	 * @return The number of users whose Attack didn't hit exactly the expected Fighter.
+	 */
+	private static int check() {
+		// Battle never ends on its own
+		BattleConfig config = new BattleConfig();
+		config.stocks = -1;
+		config.timeLimit = -1;
+		HeadlessSimulation simulation = new HeadlessSimulation(new int[] { 0, 1, 0, 1 }, config);
+		Battle battle = simulation.getBattle();
+		Fighter[] fighters = simulation.getFighters();
+		float[] health = new float[fighters.length];
+
+		for (long i = 0; i < SETTLE_TICKS; i++) battle.tick();
+
+		int failures = 0;
+		for (int user = 0; user < fighters.length; user++) {
+			Attack attack = findDamagingAttack(fighters[user]);
+			if (attack == null) {
+				System.out.println(fighters[user].getName() + " has no Attack that deals damage");
+				failures++;
+				continue;
+			}
+
+			Vector2 spot = fighters[0].getBody().getPosition();
+			float x = spot.x;
+			float y = spot.y;
+			for (int i = 0; i < fighters.length; i++) {
+				fighters[i].getBody().setTransform(x, y, 0);
+				fighters[i].getBody().setLinearVelocity(0, 0);
+				health[i] = fighters[i].getHealth();
+			}
+
+			attack.activate(x, y, true, battle.getTick());
+			fighters[user].getContext().getExpiryScheduler().schedule(attack);
+			battle.tick();
+
+			int expected = user == 0 ? 1 : 0;
+			for (int i = 0; i < fighters.length; i++) {
+				boolean isHit = fighters[i].getHealth() != health[i];
+				if (isHit != (i == expected)) {
+					System.out.println("Attack of Fighter " + user + (isHit ? " hit" : " missed") + " Fighter " + i
+							+ ", expected only Fighter " + expected + " to be hit");
+					failures++;
+				}
+			}
+		}
+
+		simulation.dispose();
+		return failures;
+	}
+
+
+	/**
+	 * @return The Fighter's first inactive hitbox that deals damage, null if none.
+	 */
+	private static Attack findDamagingAttack(Fighter fighter) {
+		Array<Attack> attacks = fighter.getHitboxes().getAttacks();
+		for (int i = 0; i < attacks.size; i++) {
+			if (!attacks.get(i).isActive() && attacks.get(i).m_damage > 0) return attacks.get(i);
+		}
+		return null;
+	}
+}
@@ -0,0 +1,114 @@
+package com.mygdx.game;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Input.Keys;
+import com.badlogic.gdx.backends.headless.mock.input.MockInput;
+
+/**
+ * Fails with a non zero exit code if a KeyboardInput press is lost or repeated.
+ * <p>
+ * Render frames are played like MyGdxGame does, sampling once then running the frame's ticks, at 144 Hz
+ * where most frames run no tick and at 30 Hz where every frame runs two. A press on any frame has to reach
+ * exactly one tick, the first one run after it. Run by the inputLatchCheck task, part of check.
+ */
+public class InputLatchCheck {
+
+	private static final float TICK_SECONDS = 1 / 60f;
+
+	/** Frames played per schedule, a press is tried on each of them. */
+	private static final int FRAMES = 60;
+
+	public static void main (String[] arg) {
+		ScriptedKeys keys = new ScriptedKeys();
+		Gdx.input = keys;
+
+		int failures = check(keys, 144) + check(keys, 30);
+		if (failures > 0) {
+			System.out.println("FAILED: " + failures + " presses lost or repeated");
+			System.exit(1);
+		}
+		System.out.println("Every press reached exactly one tick");
+	}
+
+
+	/**
+	 * Presses Jump on each frame in turn, held for a few frames, and counts the ticks that saw it.
+	 * @return The number of presses that didn't reach exactly the next tick.
+	 */
+	private static int check(ScriptedKeys keys, int framesPerSecond) {
+		int[] ticksPerFrame = schedule(1f / framesPerSecond);
+		int failures = 0;
+		for (int pressFrame = 0; pressFrame < FRAMES; pressFrame++) {
+			KeyboardInput input = KeyboardInput.primary();
+			int tick = 0;
+			int firstTick = -1; // First tick run on or after the press frame
+			int jumpTick = -1;
+			int jumps = 0;
+			for (int frame = 0; frame < FRAMES; frame++) {
+				// Down for the press frame and the two after, only just pressed on the first
+				keys.set(Keys.SPACE, frame >= pressFrame && frame < pressFrame + 3, frame == pressFrame);
+				input.sample();
+				for (int i = 0; i < ticksPerFrame[frame]; i++) {
+					if (frame >= pressFrame && firstTick == -1) firstTick = tick;
+					if (InputFrame.isPressed(input.poll(tick), InputFrame.JUMP)) {
+						jumps++;
+						jumpTick = tick;
+					}
+					tick++;
+				}
+			}
+			// Presses after the last tick never reach one
+			if (firstTick == -1) continue;
+			if (jumps != 1 || jumpTick != firstTick) {
+				System.out.println(framesPerSecond + " Hz, press on frame " + pressFrame + ": " + jumps
+						+ " jumps, expected 1 on tick " + firstTick + (jumps == 1 ? " not " + jumpTick : ""));
+				failures++;
+			}
+		}
+		return failures;
+	}
+
+
+	/**
+	 * @return Ticks run by each frame, with MyGdxGame's fixed step accumulator.
+	 */
+	private static int[] schedule(float frameSeconds) {
+		int[] ticks = new int[FRAMES];
+		float accumulator = 0;
+		for (int frame = 0; frame < FRAMES; frame++) {
+			accumulator += frameSeconds;
+			while (accumulator >= TICK_SECONDS) {
+				accumulator -= TICK_SECONDS;
+				ticks[frame]++;
+			}
+		}
+		return ticks;
+	}
+
+
+	/**
+	 * Keyboard with one scripted key, everything else is up.
+	 */
+	private static class ScriptedKeys extends MockInput {
+
+		private int m_key = Keys.UNKNOWN;
+		private boolean m_isDown = false;
+		private boolean m_isJustPressed = false;
+
+		void set(int key, boolean isDown, boolean isJustPressed) {
+			m_key = key;
+			m_isDown = isDown;
+			m_isJustPressed = isJustPressed;
+		}
+
+		@Override
+		public boolean isKeyPressed(int key) {
+			return key == m_key && m_isDown;
+		}
+
+		@Override
+		public boolean isKeyJustPressed(int key) {
+			return key == m_key && m_isJustPressed;
+		}
+	}
+}
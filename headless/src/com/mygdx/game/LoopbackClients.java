@@ -0,0 +1,156 @@
+package com.mygdx.game;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.DatagramChannel;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Local clients playing every match of a DedicatedServer, to test it without real players.
+ * <p>
+ * One thread drives every client: each tick it sends every client's scripted input, then reads the
+ * states the server sent back.
+ */
+public class LoopbackClients {
+
+	/** Large enough for any state packet. */
+	private static final int RECEIVE_SIZE = 65536;
+
+	private final int m_players;
+
+	/** One channel per player of every match, match * players + player. */
+	private final DatagramChannel[] m_channels;
+
+	private final ByteBuffer m_send = ByteBuffer.allocateDirect(DedicatedServer.INPUT_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+	private final ByteBuffer m_receive = ByteBuffer.allocateDirect(RECEIVE_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+	private final BattleSnapshot.Reader m_reader = new BattleSnapshot.Reader();
+
+	private final Thread m_thread;
+	private volatile boolean m_running;
+
+	// Written by the client thread, read once it's stopped.
+	private long m_statesReceived;
+	private long m_badStates;
+	private final long[] m_lastTicks;
+
+
+	/**
+	 * @param server Address of the DedicatedServer.
+	 * @param matches Matches to play, ids from 0.
+	 * @param players Players in each match.
+	 */
+	public LoopbackClients(InetSocketAddress server, int matches, int players) throws IOException {
+		m_players = players;
+		m_channels = new DatagramChannel[matches * players];
+		m_lastTicks = new long[matches];
+		for (int i = 0; i < m_channels.length; i++) {
+			m_channels[i] = DatagramChannel.open();
+			m_channels[i].configureBlocking(false);
+			m_channels[i].connect(server);
+		}
+		m_thread = new Thread(this::run, "LoopbackClients");
+		m_thread.setDaemon(true);
+	}
+
+
+	public void start() {
+		m_running = true;
+		m_thread.start();
+	}
+
+
+	private void run() {
+		try {
+			for (int i = 0; i < m_channels.length; i++) send(i, DedicatedServer.JOIN, 0, 0);
+
+			long tick = 0;
+			long next = System.nanoTime();
+			while (m_running) {
+				tick++;
+				for (int i = 0; i < m_channels.length; i++) {
+					// Joins are resent now and then, in case the first was dropped.
+					if (tick % MyGdxGame.TICKS_PER_SECOND == 0) send(i, DedicatedServer.JOIN, 0, 0);
+					send(i, DedicatedServer.INPUT, tick, RollbackLoopback.ScriptedInput.frame(i % m_players, tick));
+				}
+				for (int i = 0; i < m_channels.length; i++) receive(i);
+
+				next += DedicatedServer.TICK_NANOS;
+				long now;
+				while (m_running && (now = System.nanoTime()) < next) LockSupport.parkNanos(next - now);
+			}
+		} catch (IOException e) {
+			if (m_running) e.printStackTrace();
+		}
+	}
+
+
+	private void send(int client, byte type, long tick, int frame) throws IOException {
+		m_send.clear();
+		m_send.put(type);
+		m_send.putInt(client / m_players);
+		m_send.put((byte) (client % m_players));
+		if (type == DedicatedServer.INPUT) {
+			m_send.putLong(tick);
+			m_send.putInt(frame);
+		}
+		m_send.flip();
+		m_channels[client].write(m_send);
+	}
+
+
+	/**
+	 * Reads every state the server sent a client.
+	 */
+	private void receive(int client) throws IOException {
+		m_receive.clear();
+		while (m_channels[client].read(m_receive) > 0) {
+			m_receive.flip();
+			int match = client / m_players;
+			if (m_receive.remaining() < DedicatedServer.STATE_HEADER_SIZE || m_receive.get() != DedicatedServer.STATE
+					|| m_receive.getInt() != match) {
+				m_badStates++;
+			}
+			else {
+				m_lastTicks[match] = Math.max(m_lastTicks[match], m_reader.wrap(m_receive).getTick());
+				m_statesReceived++;
+			}
+			m_receive.clear();
+		}
+	}
+
+
+	/**
+	 * Stops the clients and prints what they received.
+	 * @param serverTicks Ticks the server ran.
+	 * @return If every match sent states, and none were malformed.
+	 */
+	public boolean stopAndReport(long serverTicks) {
+		m_running = false;
+		try {
+			m_thread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		for (DatagramChannel channel : m_channels) {
+			try {
+				channel.close();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+
+		int silentMatches = 0;
+		long lowestTick = Long.MAX_VALUE;
+		for (long tick : m_lastTicks) {
+			if (tick == 0) silentMatches++;
+			lowestTick = Math.min(lowestTick, tick);
+		}
+		System.out.println(m_channels.length + " loopback clients received " + m_statesReceived + " states, "
+				+ m_badStates + " malformed. Slowest match reached tick " + lowestTick + " of " + serverTicks);
+		boolean passed = silentMatches == 0 && m_badStates == 0;
+		if (!passed) System.out.println("FAILED: " + silentMatches + " matches sent no state");
+		return passed;
+	}
+}
@@ -0,0 +1,74 @@
+package com.mygdx.game;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+
+/**
+ * Plays a recorded Battle back headless, and checks it ends in the recorded state.
+ * <p>
+ * Speed 0 runs as fast as the CPU allows, otherwise ticks are paced at that multiple of real time.
+ * <p>
+ * Usage: ReplayRunner [replay file] [speed]
+ */
+public class ReplayRunner {
+
+	public static void main (String[] arg) {
+		if (arg.length < 1) throw new IllegalArgumentException("Usage: ReplayRunner [replay file] [speed]");
+		float speed = (arg.length > 1) ? Float.parseFloat(arg[1]) : 0;
+		if (speed < 0) throw new IllegalArgumentException("Speed can't be negative");
+
+		HeadlessApplicationConfiguration config = new HeadlessApplicationConfiguration();
+		config.updatesPerSecond = 0; // The replay runs inside create()
+		new HeadlessApplication(new ApplicationAdapter() {
+			@Override
+			public void create() {
+				boolean matched = run(InputReplay.read(Gdx.files.absolute(arg[0])), speed);
+				if (!matched) System.exit(1);
+				Gdx.app.exit();
+			}
+		}, config);
+	}
+
+
+	/**
+	 * @param speed Multiple of real time, 0 for unbounded.
+	 * @return If the replay ended with the recorded checksum.
+	 */
+	public static boolean run(InputReplay replay, float speed) {
+		InputSource[] inputs = new InputSource[replay.getFighterIndexes().length];
+		for (int i = 0; i < inputs.length; i++) inputs[i] = replay.getSource(i);
+		HeadlessSimulation simulation = new HeadlessSimulation(replay.getFighterIndexes(), replay.getConfig(), inputs);
+		Battle battle = simulation.getBattle();
+
+		if (speed == 0) {
+			simulation.run(replay.getTicks());
+		}
+		else {
+			long tickNanos = (long) (1000000000L / MyGdxGame.TICKS_PER_SECOND / speed);
+			long start = System.nanoTime();
+			while (!battle.isFinished && battle.getTick() < replay.getTicks()) {
+				battle.tick();
+				long ahead = start + battle.getTick() * tickNanos - System.nanoTime();
+				if (ahead > 0) {
+					try {
+						Thread.sleep(ahead / 1000000, (int) (ahead % 1000000));
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						break;
+					}
+				}
+			}
+		}
+
+		BattleState state = new BattleState(replay.getFighterIndexes().length);
+		battle.saveState(state);
+		boolean matched = battle.getTick() == replay.getTicks() && state.checksum() == replay.getChecksum();
+		System.out.println("Replayed " + battle.getTick() + " of " + replay.getTicks() + " ticks"
+				+ (speed == 0 ? " in " + simulation.getRunTime() / 1000000.0 + "ms" : ""));
+		System.out.println(matched ? "Replay matches the recording" : "FAILED: replay diverged from the recording");
+		simulation.dispose();
+		return matched;
+	}
+}
@@ -0,0 +1,310 @@
+package com.mygdx.game;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+
+/**
+ * Loopback test of rollback, four players in one process.
+ * <p>
+ * The peer knows every other player's input right away, but player 1's arrives a fixed number of ticks late.
+ * Until it arrives the peer predicts player 1 repeats their last known input, and rolls back then
+ * resimulates whenever a prediction was wrong. A reference Battle gets every input on time,
+ * the peer has to match it on every tick once that tick's inputs have all arrived.
+ * <p>
+ * Player 1's input changes every tick, so every tick is rolled back over, and now and then player 1 walks
+ * off the Arena. The test fails unless the rollbacks went back over jumps, landings, and respawns.
+ * <p>
+ * Usage: RollbackLoopback [delay in ticks] [ticks]
+ */
+public class RollbackLoopback {
+
+	private static final int DEFAULT_DELAY = 8;
+	private static final long DEFAULT_TICKS = 60L * 60 * MyGdxGame.TICKS_PER_SECOND / 10;
+
+	/** Furthest back the peer can roll, delays can't be longer. */
+	private static final int MAX_ROLLBACK = 16;
+	private static final int RING_SIZE = MAX_ROLLBACK + 2;
+
+	private static final int[] FIGHTERS = { 0, 1, 0, 1 };
+	private static final int REMOTE_PLAYER = 1;
+
+	/** Player 1 walks right for the first RUN_OFF_TICKS of every RUN_OFF_PERIOD, long enough to fall off the Arena. */
+	private static final int RUN_OFF_PERIOD = 60 * MyGdxGame.TICKS_PER_SECOND;
+	private static final int RUN_OFF_TICKS = 30 * MyGdxGame.TICKS_PER_SECOND;
+
+	/** Player 1's vertical axis cycles through this many steps, under the dead zone. More than MAX_ROLLBACK, so no delay predicts it. */
+	private static final int JITTER_STEPS = MAX_ROLLBACK + 1;
+
+	/** Furthest a Fighter moves in a tick, further is a respawn. */
+	private static final float RESPAWN_DISTANCE = 1;
+
+	/** Save and Restore of four players need to fit several times in a 16ms frame, with the ticks resimulated. */
+	private static final long BUDGET_NANOS = 250000;
+
+	private final int m_delay;
+	private final long m_ticks;
+
+	private final HeadlessSimulation m_peer;
+	private final HeadlessSimulation m_reference;
+
+	/** State before each tick, indexed by tick - 1. */
+	private final BattleState[] m_states = new BattleState[RING_SIZE];
+
+	/** Player 1's InputFrame the peer used for each tick, predicted or confirmed. */
+	private final int[] m_usedFrames = new int[RING_SIZE];
+
+	/** Reference checksum after each tick. */
+	private final long[] m_referenceChecksums = new long[RING_SIZE];
+	private final BattleState m_referenceState = new BattleState(FIGHTERS.length);
+
+	/** Last tick of player 1's input that has arrived. */
+	private long m_confirmedTick;
+
+	private final Battle.InputProvider m_peerInputs = this::setPeerInputs;
+
+	private int m_rollbacks;
+	private long m_resimulatedTicks;
+	private boolean m_isResimulating;
+	private long m_rollbackTick;
+	private long m_desyncedTick = -1;
+
+	// Events the rollbacks went back over
+	private int m_jumps;
+	private int m_landings;
+	private int m_respawns;
+
+	private long m_saves;
+	private long m_saveNanos;
+	private long m_maxSaveNanos;
+
+
+	public static void main (String[] arg) {
+		int delay = (arg.length > 0) ? Integer.parseInt(arg[0]) : DEFAULT_DELAY;
+		long ticks = (arg.length > 1) ? Long.parseLong(arg[1]) : DEFAULT_TICKS;
+		if (delay < 0 || delay > MAX_ROLLBACK) throw new IllegalArgumentException("Delay must be from 0 to " + MAX_ROLLBACK);
+
+		HeadlessApplicationConfiguration config = new HeadlessApplicationConfiguration();
+		config.updatesPerSecond = 0; // The test runs inside create()
+		new HeadlessApplication(new ApplicationAdapter() {
+			@Override
+			public void create() {
+				RollbackLoopback loopback = new RollbackLoopback(delay, ticks);
+				boolean passed = loopback.run();
+				loopback.dispose();
+				if (!passed) System.exit(1);
+				Gdx.app.exit();
+			}
+		}, config);
+	}
+
+
+	public RollbackLoopback(int delay, long ticks) {
+		m_delay = delay;
+		m_ticks = ticks;
+
+		// Battle never ends on its own
+		BattleConfig config = new BattleConfig();
+		config.stocks = -1;
+		config.timeLimit = -1;
+		config.isRollback = true;
+		m_reference = new HeadlessSimulation(FIGHTERS, config, PlayerController.ControllerType.Remote);
+		m_peer = new HeadlessSimulation(FIGHTERS, config, PlayerController.ControllerType.Remote);
+		for (int i = 0; i < RING_SIZE; i++) m_states[i] = new BattleState(FIGHTERS.length);
+	}
+
+
+	/**
+	 * @return If the peer ended in the same state as the reference.
+	 */
+	public boolean run() {
+		Battle reference = m_reference.getBattle();
+		Battle peer = m_peer.getBattle();
+
+		for (long tick = 1; tick <= m_ticks; tick++) {
+			for (int player = 0; player < FIGHTERS.length; player++) setScriptedInput(reference, player, tick);
+			reference.tick();
+			reference.saveState(m_referenceState);
+			m_referenceChecksums[(int) (tick % RING_SIZE)] = m_referenceState.checksum();
+
+			if (tick - m_delay >= 1) {
+				deliver(tick - m_delay);
+				checkConfirmed(tick - m_delay);
+			}
+			setPeerInputs(tick);
+			peer.tick();
+		}
+
+		// The last inputs arrive after the match.
+		for (long tick = Math.max(1, m_ticks - m_delay + 1); tick <= m_ticks; tick++) deliver(tick);
+
+		BattleState peerState = new BattleState(FIGHTERS.length);
+		BattleState referenceState = new BattleState(FIGHTERS.length);
+		peer.saveState(peerState);
+		reference.saveState(referenceState);
+
+		long restoreNanos = measureRestore(peer, peerState);
+		long saveNanos = m_saveNanos / m_saves;
+		System.out.println(m_ticks + " ticks, " + m_delay + " ticks of delay: " + m_rollbacks + " rollbacks, "
+				+ m_resimulatedTicks + " ticks resimulated");
+		System.out.println("Save: " + saveNanos / 1000.0 + "us average, " + m_maxSaveNanos / 1000.0 + "us max. Restore: "
+				+ restoreNanos / 1000.0 + "us average");
+		System.out.println("Rolled back over " + m_jumps + " jumps, " + m_landings + " landings, " + m_respawns + " respawns");
+
+		boolean passed = true;
+		if (m_desyncedTick != -1) {
+			System.out.println("FAILED: peer desynced from the reference on tick " + m_desyncedTick);
+			passed = false;
+		}
+		else if (peerState.checksum() != referenceState.checksum()) {
+			System.out.println("FAILED: peer desynced from the reference");
+			passed = false;
+		}
+		if (m_jumps == 0 || m_landings == 0 || m_respawns == 0) {
+			System.out.println("FAILED: rollbacks never went back over a jump, a landing, and a respawn, run more ticks");
+			passed = false;
+		}
+		if (saveNanos > BUDGET_NANOS || restoreNanos > BUDGET_NANOS) {
+			System.out.println("FAILED: Save or Restore over " + BUDGET_NANOS / 1000 + "us");
+			passed = false;
+		}
+		if (passed) System.out.println("Peer matches the reference");
+		return passed;
+	}
+
+
+	/**
+	 * Player 1's input for a tick arrives, rolling back if the peer predicted it wrong.
+	 */
+	private void deliver(long tick) {
+		m_confirmedTick = tick;
+		if (m_usedFrames[(int) (tick % RING_SIZE)] == frame(REMOTE_PLAYER, tick)) return;
+
+		// Back to the state before the mispredicted tick, then forward to the present.
+		Battle peer = m_peer.getBattle();
+		int ticks = (int) (peer.getTick() - (tick - 1));
+		m_rollbacks++;
+		m_resimulatedTicks += ticks;
+		m_isResimulating = true;
+		m_rollbackTick = tick;
+		peer.resimulate(m_states[(int) ((tick - 1) % RING_SIZE)], ticks, m_peerInputs);
+		m_isResimulating = false;
+	}
+
+
+	/**
+	 * Compares the peer with the reference after a tick whose inputs have all arrived.
+	 */
+	private void checkConfirmed(long tick) {
+		// The peer's state after the tick is saved before it simulates the next one.
+		if (m_desyncedTick != -1 || tick + 1 > m_peer.getBattle().getTick()) return;
+		if (m_states[(int) (tick % RING_SIZE)].checksum() != m_referenceChecksums[(int) (tick % RING_SIZE)]) m_desyncedTick = tick;
+	}
+
+
+	/**
+	 * Counts what happened on the tick just resimulated, between the two states saved around it.
+	 */
+	private void countEvents(BattleState previous, BattleState current) {
+		for (int i = 0; i < FIGHTERS.length; i++) {
+			boolean wasGrounded = previous.controllers[i].isGrounded;
+			boolean isGrounded = current.controllers[i].isGrounded;
+			if (wasGrounded && !isGrounded) m_jumps++;
+			if (!wasGrounded && isGrounded) m_landings++;
+			float distance = Math.abs(current.fighters[i].x - previous.fighters[i].x) + Math.abs(current.fighters[i].y - previous.fighters[i].y);
+			if (distance > RESPAWN_DISTANCE) m_respawns++;
+		}
+	}
+
+
+	/**
+	 * Saves the state before the tick, then sets the inputs the peer knows of.
+	 */
+	private void setPeerInputs(long tick) {
+		Battle peer = m_peer.getBattle();
+		long start = System.nanoTime();
+		peer.saveState(m_states[(int) ((tick - 1) % RING_SIZE)]);
+		long nanos = System.nanoTime() - start;
+		m_saves++;
+		m_saveNanos += nanos;
+		m_maxSaveNanos = Math.max(m_maxSaveNanos, nanos);
+		// The tick before this one was resimulated, its states on both sides are saved.
+		if (m_isResimulating && tick > m_rollbackTick) {
+			countEvents(m_states[(int) ((tick - 2) % RING_SIZE)], m_states[(int) ((tick - 1) % RING_SIZE)]);
+		}
+
+		for (int player = 0; player < FIGHTERS.length; player++) {
+			if (player != REMOTE_PLAYER) setScriptedInput(peer, player, tick);
+		}
+
+		// Predicted as the last confirmed input, until the real one arrives.
+		long known = Math.min(tick, m_confirmedTick);
+		int frame = (known >= 1) ? frame(REMOTE_PLAYER, known) : InputFrame.NEUTRAL;
+		m_usedFrames[(int) (tick % RING_SIZE)] = frame;
+		peer.getControllers()[REMOTE_PLAYER].setRemoteInput(frame);
+	}
+
+
+	private static void setScriptedInput(Battle battle, int player, long tick) {
+		battle.getControllers()[player].setRemoteInput(frame(player, tick));
+	}
+
+
+	/**
+	 * ScriptedInput, except player 1 walks off the Arena every RUN_OFF_PERIOD, and its vertical axis changes
+	 * every tick under the dead zone. It changes nothing in game, but every one of player 1's ticks is mispredicted.
+	 */
+	private static int frame(int player, long tick) {
+		if (player != REMOTE_PLAYER) return ScriptedInput.frame(player, tick);
+		int frame = (tick % RUN_OFF_PERIOD < RUN_OFF_TICKS) ? InputFrame.of(0, 1, 0) : ScriptedInput.frame(player, tick);
+		float axisY = InputFrame.axisY(frame);
+		float jitter = (tick % JITTER_STEPS + 1) / 127f;
+		axisY = (axisY == 0) ? jitter : axisY * (1 - jitter);
+		return InputFrame.of(InputFrame.buttons(frame), InputFrame.axisX(frame), axisY);
+	}
+
+
+	/**
+	 * @return Average time to restore the state, in nanoseconds.
+	 */
+	private static long measureRestore(Battle battle, BattleState state) {
+		final int restores = 1000;
+		long start = System.nanoTime();
+		for (int i = 0; i < restores; i++) battle.restoreState(state);
+		return (System.nanoTime() - start) / restores;
+	}
+
+
+	public void dispose() {
+		m_peer.dispose();
+		m_reference.dispose();
+	}
+
+
+	/**
+	 * Deterministic made up input, each player holds an input for a while then changes it.
+	 */
+	static class ScriptedInput {
+
+		/** Ticks an input is held for. */
+		private static final int HOLD_TICKS = 12;
+
+		private static final int ATTACKS = InputFrame.BASIC | InputFrame.SPECIAL | InputFrame.SMASH | InputFrame.ULTIMATE;
+
+		static int frame(int player, long tick) {
+			int hash = hash(player, tick / HOLD_TICKS);
+			int buttons = hash & (InputFrame.JUMP | InputFrame.GUARD | ATTACKS);
+			// Jumps and Attacks are presses, only on the first tick of the hold.
+			if (tick % HOLD_TICKS != 0) buttons &= ~(InputFrame.JUMP | ATTACKS);
+			// Guarding most of the time would stop everything else.
+			if ((hash >>> 8) % 4 != 0) buttons &= ~InputFrame.GUARD;
+			return InputFrame.of(buttons, (hash >>> 12) % 3 - 1, (hash >>> 16) % 3 - 1);
+		}
+
+		private static int hash(int player, long hold) {
+			long x = (hold * 31 + player) * 0x9E3779B97F4A7C15L;
+			return (int) ((x ^ (x >>> 29)) >>> 32) & Integer.MAX_VALUE;
+		}
+	}
+}
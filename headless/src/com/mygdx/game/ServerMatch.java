@@ -0,0 +1,163 @@
+package com.mygdx.game;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.DatagramChannel;
+
+/**
+ * One match hosted by the DedicatedServer, a Battle between Remote players and the clients playing it.
+ * <p>
+ * Ticked by one of the server's worker threads, inputs are set by the server's receiving thread.
+ * The latest input of each player is used until a newer one arrives.
+ */
+public class ServerMatch {
+
+	private final int m_id;
+	private final HeadlessSimulation m_simulation;
+	private final BattleSnapshot m_snapshot;
+
+	/** Client address of each player, null until they join. */
+	private final SocketAddress[] m_clients;
+
+	/** Latest InputFrame and the tick it was sent for, per player. */
+	private final int[] m_frames;
+	private final long[] m_frameTicks;
+
+	/** State packet, the header then a BattleSnapshot. Grows with the Battle's hitbox pools. */
+	private ByteBuffer m_packet;
+
+	// CPU budget
+	private final long m_budgetNanos;
+	private long m_tickNanos;
+	private long m_maxTickNanos;
+	private long m_overBudgetTicks;
+
+
+	/**
+	 * @param id Match id clients join with.
+	 * @param fighterIndexes Fighter index numbers, one per player.
+	 * @param budgetNanos CPU time a tick, snapshot included, may take.
+	 */
+	public ServerMatch(int id, int[] fighterIndexes, BattleConfig config, long budgetNanos) {
+		m_id = id;
+		m_simulation = new HeadlessSimulation(fighterIndexes, config, PlayerController.ControllerType.Remote);
+		m_snapshot = new BattleSnapshot(fighterIndexes.length);
+		m_clients = new SocketAddress[fighterIndexes.length];
+		m_frames = new int[fighterIndexes.length];
+		m_frameTicks = new long[fighterIndexes.length];
+		m_budgetNanos = budgetNanos;
+		m_packet = ByteBuffer.allocateDirect(DedicatedServer.STATE_HEADER_SIZE
+				+ BattleSnapshot.getMaxSize(fighterIndexes.length, getHitboxCount())).order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+
+	/**
+	 * A client joins as a player, or rejoins from a new address.
+	 */
+	public synchronized void join(int player, SocketAddress client) {
+		m_clients[player] = client;
+		m_frameTicks[player] = 0;
+	}
+
+
+	/**
+	 * Input from a client, ignored if it's from another address or older than one already received.
+	 */
+	public synchronized void receiveInput(int player, SocketAddress client, long tick, int frame) {
+		if (!client.equals(m_clients[player]) || tick <= m_frameTicks[player]) return;
+		m_frames[player] = frame;
+		m_frameTicks[player] = tick;
+	}
+
+
+	/**
+	 * Ticks the Battle with the latest inputs, then sends the state to every client.
+	 * Called from one worker thread at a time.
+	 */
+	public void tick(DatagramChannel channel) {
+		Battle battle = m_simulation.getBattle();
+		if (battle.isFinished) return;
+
+		long start = System.nanoTime();
+		PlayerController[] controllers = battle.getControllers();
+		synchronized (this) {
+			for (int i = 0; i < controllers.length; i++) controllers[i].setRemoteInput(m_frames[i]);
+		}
+		battle.tick();
+		broadcast(channel);
+
+		long nanos = System.nanoTime() - start;
+		m_tickNanos += nanos;
+		m_maxTickNanos = Math.max(m_maxTickNanos, nanos);
+		if (nanos > m_budgetNanos) {
+			m_overBudgetTicks++;
+			if (m_overBudgetTicks == 1) System.out.println("Match " + m_id + " went over its budget on tick " + battle.getTick() + ": " + nanos / 1000 + "us");
+		}
+	}
+
+
+	private void broadcast(DatagramChannel channel) {
+		int size = DedicatedServer.STATE_HEADER_SIZE + BattleSnapshot.getMaxSize(m_clients.length, getHitboxCount());
+		if (m_packet.capacity() < size) m_packet = ByteBuffer.allocateDirect(size).order(ByteOrder.LITTLE_ENDIAN);
+
+		m_packet.clear();
+		m_packet.put(DedicatedServer.STATE);
+		m_packet.putInt(m_id);
+		m_snapshot.write(m_simulation.getBattle(), m_packet);
+		m_packet.flip();
+
+		for (SocketAddress client : m_clients) {
+			if (client == null) continue;
+			try {
+				m_packet.rewind();
+				channel.send(m_packet, client);
+			} catch (IOException e) {
+				System.out.println("Match " + m_id + " couldn't send to " + client + ": " + e.getMessage());
+			}
+		}
+	}
+
+
+	/**
+	 * @return Hitboxes of every Fighter, the most Attacks a snapshot can hold.
+	 */
+	private int getHitboxCount() {
+		int count = 0;
+		for (Fighter fighter : m_simulation.getFighters()) count += fighter.getHitboxes().getAttacks().size;
+		return count;
+	}
+
+
+	public int getId() {
+		return m_id;
+	}
+
+	public int getPlayerCount() {
+		return m_clients.length;
+	}
+
+	public Battle getBattle() {
+		return m_simulation.getBattle();
+	}
+
+	/** @return CPU time spent ticking, in nanoseconds. */
+	public long getTickNanos() {
+		return m_tickNanos;
+	}
+
+	public long getMaxTickNanos() {
+		return m_maxTickNanos;
+	}
+
+	/** @return Ticks that took longer than the budget. */
+	public long getOverBudgetTicks() {
+		return m_overBudgetTicks;
+	}
+
+
+	public void dispose() {
+		m_simulation.dispose();
+	}
+}